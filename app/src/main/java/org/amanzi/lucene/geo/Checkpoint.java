@@ -0,0 +1,68 @@
+package org.amanzi.lucene.geo;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Progress of a rendering run, saved periodically so that an interrupted run can be resumed. Since the tessellator
+ * is deterministic, the monitor state needed for the overlays is reconstructed by replaying the events, and the
+ * checkpoint is used to make sure the replay matches the original run, and that the images were made with the
+ * same settings.
+ */
+class Checkpoint {
+    static final int INTERVAL = 100;
+    final int index;
+    final String status;
+    final int triangles;
+    final String settings;
+
+    Checkpoint(int index, String status, int triangles, String settings) {
+        this.index = index;
+        this.status = status;
+        this.triangles = triangles;
+        this.settings = settings;
+    }
+
+    /**
+     * Returns true if the event that produced the last frame before this checkpoint had the same status and triangles.
+     */
+    boolean matches(String status, int triangles) {
+        return String.valueOf(status).equals(this.status) && triangles == this.triangles;
+    }
+
+    static Checkpoint load(Path file) {
+        if (!Files.isRegularFile(file)) return null;
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+            return new Checkpoint(
+                    Integer.parseInt(properties.getProperty("index")),
+                    properties.getProperty("status"),
+                    Integer.parseInt(properties.getProperty("triangles")),
+                    properties.getProperty("settings"));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    void save(Path file) {
+        Properties properties = new Properties();
+        properties.setProperty("index", Integer.toString(index));
+        properties.setProperty("status", String.valueOf(status));
+        properties.setProperty("triangles", Integer.toString(triangles));
+        properties.setProperty("settings", settings);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                properties.store(writer, "Triangulation rendering checkpoint");
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write checkpoint '" + file + "': " + e.getMessage(), e);
+        }
+    }
+}
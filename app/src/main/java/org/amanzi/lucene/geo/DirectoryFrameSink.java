@@ -0,0 +1,68 @@
+package org.amanzi.lucene.geo;
+
+import javax.imageio.ImageIO;
+import java.awt.image.RenderedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+
+/**
+ * Writes each frame to a separate PNG file, with names like 'name-00042.png', suitable for tools like 'ffmpeg'.
+ */
+public class DirectoryFrameSink implements FrameSink {
+    private final Path dir;
+    private final String name;
+
+    public DirectoryFrameSink(Path dir, String name) {
+        this.dir = dir;
+        this.name = name;
+    }
+
+    static String fileName(String name, int index) {
+        String indexString = "0000" + index;
+        return name + "-" + indexString.substring(indexString.length() - 5) + ".png";
+    }
+
+    private Path path(int index) {
+        return dir.resolve(fileName(name, index));
+    }
+
+    @Override
+    public void clear() {
+        File dir = this.dir.toFile();
+        dir.mkdirs();
+        int count = 0, deleted = 0;
+        for (File file : Objects.requireNonNull(dir.listFiles((d, n) -> n.startsWith(name)))) {
+            if (file.delete()) deleted++;
+            count++;
+        }
+        if (deleted < count)
+            throw new IllegalStateException("Failed to delete " + (count - deleted) + " of " + count + " files in " + dir);
+    }
+
+    @Override
+    public boolean exists(int index) {
+        return path(index).toFile().length() > 0;
+    }
+
+    @Override
+    public void write(int index, RenderedImage image) throws IOException {
+        Path imagePath = path(index);
+        // Write to a temporary file first, so that an interrupted run never leaves an incomplete image behind
+        Path tmpPath = imagePath.resolveSibling(imagePath.getFileName() + ".tmp");
+        ImageIO.write(image, "png", tmpPath.toFile());
+        Files.move(tmpPath, imagePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public String location(int index) {
+        return path(index).toString();
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,161 @@
+package org.amanzi.lucene.geo;
+
+import org.apache.lucene.geo.Point;
+import org.apache.lucene.geo.Rectangle;
+import org.apache.lucene.geo.Tessellator;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Wraps another monitor and only passes on the events matching a {@link Filter}, so that rendering can be targeted at
+ * the phase or region of the polygon being debugged, while all other events only cost the callback. Events are numbered
+ * the same way as the images of an unfiltered {@link TriangulationMonitor} run, with the first event as 1 (after the
+ * image of the polygon), and each split counting as the six images it would have been drawn with, so an event window
+ * can be taken directly from the image names of a previous run. Monitors implementing {@link Numbered} are told the
+ * number of each event passed on, so their output keeps these numbers. A split is only passed on if its start matches,
+ * and then its end is also passed on, so the wrapped monitor always sees matching start and end events. Completion and
+ * failure are always passed on, so the wrapped monitor can finish.
+ */
+public class FilteringMonitor implements Tessellator.Monitor, Closeable {
+    private final Tessellator.Monitor monitor;
+    private final Filter filter;
+    private final Deque<Boolean> splits = new ArrayDeque<>();
+    private int index = 1;
+
+    public FilteringMonitor(Tessellator.Monitor monitor, Filter filter) {
+        this.monitor = monitor;
+        this.filter = filter;
+    }
+
+    @Override
+    public void currentState(String status, List<Point> points, List<Tessellator.Triangle> tessellation) {
+        if (TriangulationMonitor.isFinished(status) || filter.matches(status, index, index, points)) {
+            if (monitor instanceof Numbered numbered) numbered.skipTo(index);
+            monitor.currentState(status, points, tessellation);
+        }
+        index++;
+    }
+
+    @Override
+    public void startSplit(String status, List<Point> leftPolygon, List<Point> rightPolygon) {
+        boolean matches = filter.matchesSplit(status, index, index + TriangulationMonitor.SPLIT_FRAMES - 1, leftPolygon.get(0), rightPolygon.get(0));
+        splits.push(matches);
+        if (matches) {
+            if (monitor instanceof Numbered numbered) numbered.skipTo(index);
+            monitor.startSplit(status, leftPolygon, rightPolygon);
+        }
+        index += TriangulationMonitor.SPLIT_FRAMES;
+    }
+
+    @Override
+    public void endSplit(String status) {
+        if (!splits.isEmpty() && splits.pop()) monitor.endSplit(status);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (monitor instanceof Closeable closeable) closeable.close();
+    }
+
+    /**
+     * A monitor that numbers its output, like the images of the {@link TriangulationMonitor}.
+     */
+    public interface Numbered {
+        /**
+         * The number of the next event, which skips the numbers of the events that were filtered out.
+         */
+        void skipTo(int event);
+    }
+
+    /**
+     * Immutable description of the events of interest. All of the configured criteria must match: a status pattern,
+     * a window of event numbers, and a region that the current ear, or the diagonal of a split, must intersect.
+     */
+    public static class Filter {
+        public static final Filter ALL = new Filter(null, 0, Integer.MAX_VALUE, null);
+        final Pattern status;
+        final int from;
+        final int to;
+        final Rectangle region;
+
+        private Filter(Pattern status, int from, int to, Rectangle region) {
+            this.status = status;
+            this.from = from;
+            this.to = to;
+            this.region = region;
+        }
+
+        /**
+         * Only match events with a status containing a match of the regular expression, like 'CURE' or 'SPLIT\[2\]'.
+         */
+        public Filter withStatus(String regex) {
+            return new Filter(Pattern.compile(regex), this.from, this.to, this.region);
+        }
+
+        /**
+         * Only match events numbered from and to, inclusive.
+         */
+        public Filter withEvents(int from, int to) {
+            return new Filter(this.status, from, to, this.region);
+        }
+
+        /**
+         * Only match events where the tessellator is working inside this region.
+         */
+        public Filter withRegion(Rectangle region) {
+            return new Filter(this.status, this.from, this.to, region);
+        }
+
+        public boolean isAll() {
+            return status == null && from <= 1 && to == Integer.MAX_VALUE && region == null;
+        }
+
+        /**
+         * Returns true if the event matches, where the current ear is the first point, between the last and second.
+         */
+        boolean matches(String status, int first, int last, List<Point> points) {
+            if (!matchesStatusAndWindow(status, first, last)) return false;
+            if (region == null) return true;
+            if (points == null || points.isEmpty()) return false;
+            Point previous = points.get(points.size() - 1);
+            Point current = points.get(0);
+            Point next = points.get(points.size() > 1 ? 1 : 0);
+            Path2D.Double ear = new Path2D.Double();
+            ear.moveTo(previous.getLon(), previous.getLat());
+            ear.lineTo(current.getLon(), current.getLat());
+            ear.lineTo(next.getLon(), next.getLat());
+            ear.closePath();
+            Rectangle2D bounds = regionBounds();
+            return ear.intersects(bounds) || bounds.contains(current.getLon(), current.getLat());
+        }
+
+        boolean matchesSplit(String status, int first, int last, Point from, Point to) {
+            if (!matchesStatusAndWindow(status, first, last)) return false;
+            if (region == null) return true;
+            return regionBounds().intersectsLine(new Line2D.Double(from.getLon(), from.getLat(), to.getLon(), to.getLat()));
+        }
+
+        private boolean matchesStatusAndWindow(String status, int first, int last) {
+            if (last < from || first > to) return false;
+            return this.status == null || (status != null && this.status.matcher(status).find());
+        }
+
+        private Rectangle2D regionBounds() {
+            return new Rectangle2D.Double(region.minLon, region.minLat, region.maxLon - region.minLon, region.maxLat - region.minLat);
+        }
+
+        @Override
+        public String toString() {
+            return "status " + (status == null ? "any" : status) + ", events " + from + ":" + (to == Integer.MAX_VALUE ? "" : to)
+                    + ", region " + (region == null ? "any" : region);
+        }
+    }
+}
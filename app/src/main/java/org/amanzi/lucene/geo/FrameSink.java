@@ -0,0 +1,30 @@
+package org.amanzi.lucene.geo;
+
+import java.awt.image.RenderedImage;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Destination for the images rendered by the {@link TriangulationMonitor}, one per frame.
+ */
+public interface FrameSink extends Closeable {
+    /**
+     * Remove all frames from any previous run.
+     */
+    void clear() throws IOException;
+
+    /**
+     * Returns true if a complete frame with this index already exists, for example from an interrupted run.
+     */
+    boolean exists(int index);
+
+    /**
+     * Write the frame as a PNG image, replacing any existing frame with the same index.
+     */
+    void write(int index, RenderedImage image) throws IOException;
+
+    /**
+     * Description of where the frame is stored, for logging and error messages.
+     */
+    String location(int index);
+}
@@ -0,0 +1,164 @@
+package org.amanzi.lucene.geo;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.TessellatedShape;
+import org.apache.lucene.geo.Polygon;
+import org.apache.lucene.geo.Tessellator;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.Directory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end benchmark of indexing polygons as LatLonShape fields, which is what the tessellator is used for in
+ * production. The corpus is indexed the given number of times, with each polygon as one document, by several threads
+ * sharing one IndexWriter. Each thread times tessellation separately from the creation and indexing of the triangle
+ * fields, so the report shows how much of the ingestion time a change to the tessellator would affect. Polygons that
+ * fail to tessellate are counted and skipped, as they would be rejected in production.
+ */
+public class IndexingBenchmark {
+    public static final String FIELD = "shape";
+    private final List<Polygon> corpus;
+    private final int threads;
+    private final int repeat;
+
+    public IndexingBenchmark(List<Polygon> corpus, int threads, int repeat) {
+        this.corpus = corpus;
+        this.threads = threads;
+        this.repeat = repeat;
+    }
+
+    /**
+     * Index the corpus into the directory, which would normally be an in-memory ByteBuffersDirectory.
+     */
+    public Result run(Directory directory) throws IOException {
+        AtomicInteger next = new AtomicInteger();
+        int total = corpus.size() * repeat;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+            long start = System.nanoTime();
+            List<Future<Result>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    Result result = new Result();
+                    for (int doc = next.getAndIncrement(); doc < total; doc = next.getAndIncrement()) {
+                        result.index(writer, corpus.get(doc % corpus.size()));
+                    }
+                    return result;
+                }));
+            }
+            Result result = new Result();
+            for (Future<Result> future : futures) {
+                result.add(future.get());
+            }
+            long commit = System.nanoTime();
+            writer.commit();
+            result.commitNanos = System.nanoTime() - commit;
+            result.wallNanos = System.nanoTime() - start;
+            for (String file : directory.listAll()) {
+                result.indexBytes += directory.fileLength(file);
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while indexing", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed indexing: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public static class Result {
+        int documents;
+        int failures;
+        long triangles;
+        long tessellationNanos;
+        long indexingNanos;
+        long commitNanos;
+        long wallNanos;
+        long indexBytes;
+
+        private void index(IndexWriter writer, Polygon polygon) throws IOException {
+            long start = System.nanoTime();
+            List<Tessellator.Triangle> tessellation;
+            try {
+                tessellation = Tessellator.tessellate(polygon, false);
+            } catch (IllegalArgumentException e) {
+                failures++;
+                tessellationNanos += System.nanoTime() - start;
+                return;
+            }
+            long tessellated = System.nanoTime();
+            Document document = new Document();
+            for (Field field : TessellatedShape.createIndexableFields(FIELD, tessellation)) {
+                document.add(field);
+            }
+            writer.addDocument(document);
+            indexingNanos += System.nanoTime() - tessellated;
+            tessellationNanos += tessellated - start;
+            triangles += tessellation.size();
+            documents++;
+        }
+
+        private void add(Result other) {
+            documents += other.documents;
+            failures += other.failures;
+            triangles += other.triangles;
+            tessellationNanos += other.tessellationNanos;
+            indexingNanos += other.indexingNanos;
+        }
+
+        public int getDocuments() {
+            return documents;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        public long getTriangles() {
+            return triangles;
+        }
+
+        public long getIndexBytes() {
+            return indexBytes;
+        }
+
+        public double documentsPerSecond() {
+            return documents * 1e9 / wallNanos;
+        }
+
+        public double trianglesPerSecond() {
+            return triangles * 1e9 / wallNanos;
+        }
+
+        /**
+         * The share of the time spent by the indexing threads that went into tessellation, rather than indexing.
+         */
+        public double tessellationShare() {
+            long busy = tessellationNanos + indexingNanos;
+            return busy == 0 ? 0 : (double) tessellationNanos / busy;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "Indexed %d documents (%d failed) with %d triangles in %.1f ms:"
+                            + " %.1f documents/s, %.0f triangles/s, tessellation %.0f%% (%.1f ms) and indexing %.0f%% (%.1f ms)"
+                            + " of thread time, commit %.1f ms, index size %s",
+                    documents, failures, triangles, wallNanos / 1e6, documentsPerSecond(), trianglesPerSecond(),
+                    tessellationShare() * 100, tessellationNanos / 1e6, (1 - tessellationShare()) * 100, indexingNanos / 1e6,
+                    commitNanos / 1e6, PolygonComplexity.formatBytes(indexBytes));
+        }
+    }
+}
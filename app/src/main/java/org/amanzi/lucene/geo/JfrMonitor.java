@@ -0,0 +1,81 @@
+package org.amanzi.lucene.geo;
+
+import org.apache.lucene.geo.Point;
+import org.apache.lucene.geo.Tessellator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Wraps another monitor and records JFR events for each callback, as well as for the time the tessellator
+ * spent between callbacks. This makes it possible to see whether time goes into the algorithm or into the
+ * monitor. The events are only collected when a flight recording is running, for example when started with
+ * {@code -XX:StartFlightRecording}, and otherwise have negligible overhead.
+ */
+public class JfrMonitor implements Tessellator.Monitor, Closeable {
+    private final String name;
+    private final Tessellator.Monitor monitor;
+    private TessellationStepEvent step;
+
+    public JfrMonitor(String name, Tessellator.Monitor monitor) {
+        this.name = name;
+        this.monitor = monitor;
+        startStep();
+    }
+
+    @Override
+    public void currentState(String status, List<Point> points, List<Tessellator.Triangle> tessellation) {
+        MonitorCallbackEvent event = startCallback(status, "currentState");
+        monitor.currentState(status, points, tessellation);
+        if (event.isEnabled()) {
+            event.points = points == null ? 0 : points.size();
+            event.triangles = tessellation == null ? 0 : tessellation.size();
+        }
+        endCallback(event);
+    }
+
+    @Override
+    public void startSplit(String status, List<Point> leftPolygon, List<Point> rightPolygon) {
+        MonitorCallbackEvent event = startCallback(status, "startSplit");
+        monitor.startSplit(status, leftPolygon, rightPolygon);
+        if (event.isEnabled()) event.points = leftPolygon.size() + rightPolygon.size();
+        endCallback(event);
+    }
+
+    @Override
+    public void endSplit(String status) {
+        MonitorCallbackEvent event = startCallback(status, "endSplit");
+        monitor.endSplit(status);
+        endCallback(event);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (monitor instanceof Closeable closeable) closeable.close();
+    }
+
+    private MonitorCallbackEvent startCallback(String status, String callback) {
+        if (step.isEnabled()) step.status = status;
+        step.commit();
+        MonitorCallbackEvent event = new MonitorCallbackEvent();
+        if (event.isEnabled()) {
+            event.name = name;
+            event.callback = callback;
+            event.status = status;
+        }
+        event.begin();
+        return event;
+    }
+
+    private void endCallback(MonitorCallbackEvent event) {
+        event.commit();
+        startStep();
+    }
+
+    private void startStep() {
+        step = new TessellationStepEvent();
+        if (step.isEnabled()) step.name = name;
+        step.begin();
+    }
+}
@@ -0,0 +1,309 @@
+package org.amanzi.lucene.geo;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.lucene.geo.Point;
+import org.apache.lucene.geo.Polygon;
+import org.apache.lucene.geo.Tessellator;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded HTTP server on localhost that streams tessellation events to a browser based viewer.
+ * Instead of rendering images in the JVM, each monitor event is converted into a compact JSON delta
+ * (only the triangles added since the previous event, and the nodes removed from the remaining ring)
+ * and pushed to all connected browsers using Server-Sent Events. The viewer at '/' replays the deltas
+ * onto a canvas, and supports play, pause and seek. All events are kept, so a browser connecting late
+ * will still see the whole run, and a browser reconnecting only receives the events it has not seen.
+ */
+public class LiveViewServer implements Closeable {
+    private static final String VIEWER = "live-view.html";
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final List<String> events = new ArrayList<>();
+    private int runs = 0;
+    private boolean closed = false;
+
+    public LiveViewServer(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newCachedThreadPool();
+        server.createContext("/", this::handleViewer);
+        server.createContext("/events", this::handleEvents);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public String getURL() {
+        return "http://localhost:" + getPort() + "/";
+    }
+
+    /**
+     * Create a new monitor for the tessellation of one polygon. Each monitor is shown as a separate run in the viewer.
+     */
+    public Tessellator.Monitor monitor(String name, Polygon polygon) {
+        return new LiveMonitor(nextRun(), name, polygon);
+    }
+
+    private synchronized int nextRun() {
+        return runs++;
+    }
+
+    private synchronized void publish(String event) {
+        events.add(event);
+        notifyAll();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleViewer(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream is = LiveViewServer.class.getResourceAsStream(VIEWER)) {
+            if (!exchange.getRequestURI().getPath().equals("/") || is == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            byte[] html = is.readAllBytes();
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, html.length);
+            exchange.getResponseBody().write(html);
+        }
+    }
+
+    private void handleEvents(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+            int cursor = lastEventId(exchange) + 1;
+            while (true) {
+                List<String> pending;
+                synchronized (this) {
+                    if (cursor == events.size() && !closed) wait(15000);
+                    if (closed) return;
+                    pending = new ArrayList<>(events.subList(cursor, events.size()));
+                }
+                if (pending.isEmpty()) {
+                    // Keep-alive comment, also lets us notice clients that have gone away
+                    writer.write(": ping\n\n");
+                }
+                for (int i = 0; i < pending.size(); i++) {
+                    String event = pending.get(i);
+                    writer.write("id: " + (cursor + i) + "\n");
+                    writer.write("data: ");
+                    writer.write(event);
+                    writer.write("\n\n");
+                }
+                writer.flush();
+                cursor += pending.size();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // The browser closed the connection, nothing more to send
+        }
+    }
+
+    /**
+     * The id of the last event a reconnecting browser received, so that it is not sent the same events again.
+     */
+    private synchronized int lastEventId(HttpExchange exchange) {
+        String id = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+        try {
+            return id == null ? -1 : Math.max(-1, Math.min(events.size() - 1, Integer.parseInt(id.trim())));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * The ring of remaining points at each event is usually the ring of a previous event with a few nodes removed,
+     * starting at a different node, so only the position of the new start and the removed nodes are sent. The base is
+     * the ring of the previous event, or one of the two rings of the current split. Only when the ring cannot be
+     * derived from any of those, like for the first event, or if that would be larger, is the whole ring sent.
+     */
+    private class LiveMonitor implements Tessellator.Monitor {
+        private final int run;
+        private final Deque<List<List<Point>>> splits = new ArrayDeque<>();
+        private List<Point> ring;
+        private int triangles = 0;
+
+        private LiveMonitor(int run, String name, Polygon polygon) {
+            this.run = run;
+            StringBuilder json = start("polygon");
+            json.append(",\"name\":");
+            appendString(json, name);
+            json.append(",\"bbox\":[").append(polygon.minLon).append(',').append(polygon.minLat).append(',')
+                    .append(polygon.maxLon).append(',').append(polygon.maxLat).append("],\"rings\":[");
+            appendRing(json, polygon);
+            for (Polygon hole : polygon.getHoles()) {
+                json.append(',');
+                appendRing(json, hole);
+            }
+            publish(json.append("]}").toString());
+        }
+
+        @Override
+        public void currentState(String status, List<Point> points, List<Tessellator.Triangle> tessellation) {
+            StringBuilder json = start("state");
+            json.append(",\"status\":");
+            appendString(json, status);
+            appendRing(json, points);
+            json.append(",\"triangles\":[");
+            if (tessellation != null) {
+                // The tessellator only ever appends to the list, so we only need to send the new triangles
+                if (tessellation.size() < triangles) triangles = 0;
+                for (int i = triangles; i < tessellation.size(); i++) {
+                    Tessellator.Triangle t = tessellation.get(i);
+                    for (int j = 0; j < 3; j++) {
+                        if (i > triangles || j > 0) json.append(',');
+                        json.append(t.getX(j)).append(',').append(t.getY(j));
+                    }
+                }
+                triangles = tessellation.size();
+            }
+            publish(json.append("]}").toString());
+        }
+
+        @Override
+        public void startSplit(String status, List<Point> leftPolygon, List<Point> rightPolygon) {
+            splits.push(List.of(leftPolygon, rightPolygon));
+            StringBuilder json = start("split");
+            json.append(",\"status\":");
+            appendString(json, status);
+            json.append(",\"left\":");
+            appendPoints(json, leftPolygon);
+            json.append(",\"right\":");
+            appendPoints(json, rightPolygon);
+            publish(json.append('}').toString());
+        }
+
+        @Override
+        public void endSplit(String status) {
+            if (!splits.isEmpty()) splits.pop();
+            StringBuilder json = start("endSplit");
+            json.append(",\"status\":");
+            appendString(json, status);
+            publish(json.append('}').toString());
+        }
+
+        private void appendRing(StringBuilder json, List<Point> points) {
+            if (points == null) {
+                json.append(",\"points\":null");
+                return;
+            }
+            List<List<Point>> bases = new ArrayList<>();
+            bases.add(ring == null ? List.of() : ring);
+            if (!splits.isEmpty()) bases.addAll(splits.peek());
+            ring = points;
+            for (int base = 0; base < bases.size(); base++) {
+                List<Integer> delta = delta(bases.get(base), points);
+                if (delta != null) {
+                    json.append(",\"base\":").append(base).append(",\"start\":").append(delta.get(0)).append(",\"removed\":[");
+                    for (int i = 1; i < delta.size(); i++) {
+                        if (i > 1) json.append(',');
+                        json.append(delta.get(i));
+                    }
+                    json.append(']');
+                    return;
+                }
+            }
+            json.append(",\"points\":");
+            appendPoints(json, points);
+        }
+
+        /**
+         * Returns the index in the base ring of the first point, followed by the indexes of the removed points, if the
+         * points are the base ring with some points removed, and this is smaller than the points, otherwise null.
+         */
+        private List<Integer> delta(List<Point> base, List<Point> points) {
+            int n = base.size();
+            int m = points.size();
+            if (m == 0 || m > n) return null;
+            for (int start = 0; start < n; start++) {
+                if (!samePoint(base.get(start), points.get(0))) continue;
+                List<Integer> delta = new ArrayList<>();
+                delta.add(start);
+                int matched = 0;
+                for (int k = 0; k < n && delta.size() <= m + 1; k++) {
+                    int i = (start + k) % n;
+                    if (matched < m && samePoint(base.get(i), points.get(matched))) matched++;
+                    else delta.add(i);
+                }
+                if (matched == m && delta.size() <= m + 1) return delta;
+            }
+            return null;
+        }
+
+        private boolean samePoint(Point a, Point b) {
+            return a.getLat() == b.getLat() && a.getLon() == b.getLon();
+        }
+
+        private StringBuilder start(String type) {
+            return new StringBuilder("{\"type\":\"").append(type).append("\",\"run\":").append(run);
+        }
+
+        private void appendRing(StringBuilder json, Polygon polygon) {
+            double[] lats = polygon.getPolyLats();
+            double[] lons = polygon.getPolyLons();
+            json.append('[');
+            for (int i = 0; i < lats.length; i++) {
+                if (i > 0) json.append(',');
+                json.append(lons[i]).append(',').append(lats[i]);
+            }
+            json.append(']');
+        }
+
+        private void appendPoints(StringBuilder json, List<Point> points) {
+            if (points == null) {
+                json.append("null");
+                return;
+            }
+            json.append('[');
+            for (int i = 0; i < points.size(); i++) {
+                if (i > 0) json.append(',');
+                json.append(points.get(i).getLon()).append(',').append(points.get(i).getLat());
+            }
+            json.append(']');
+        }
+
+        private void appendString(StringBuilder json, String value) {
+            if (value == null) {
+                json.append("null");
+                return;
+            }
+            json.append('"');
+            for (char c : value.toCharArray()) {
+                switch (c) {
+                    case '"' -> json.append("\\\"");
+                    case '\\' -> json.append("\\\\");
+                    default -> {
+                        if (c < ' ') json.append(String.format("\\u%04x", (int) c));
+                        else json.append(c);
+                    }
+                }
+            }
+            json.append('"');
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.amanzi.lucene.geo;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event recorded by the {@link JfrMonitor} for each callback from the tessellator.
+ * The duration is the time spent in the wrapped monitor, for example rendering images.
+ */
+@Name("org.amanzi.lucene.geo.MonitorCallback")
+@Label("Tessellator Monitor Callback")
+@Category({"Lucene", "Tessellator"})
+@StackTrace(false)
+class MonitorCallbackEvent extends Event {
+    @Label("Name")
+    String name;
+
+    @Label("Callback")
+    String callback;
+
+    @Label("Status")
+    String status;
+
+    @Label("Point Count")
+    int points;
+
+    @Label("Triangle Count")
+    int triangles;
+}
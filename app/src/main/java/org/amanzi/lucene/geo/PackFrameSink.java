@@ -0,0 +1,122 @@
+package org.amanzi.lucene.geo;
+
+import javax.imageio.ImageIO;
+import java.awt.image.RenderedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Appends all frames to a single pack file, instead of creating one file per frame, which is much faster to write,
+ * list, copy and delete when there are tens of thousands of frames. Each record has a small header with a marker,
+ * the frame index and the length of the PNG data that follows. The index of frame positions is rebuilt by skipping
+ * from header to header when the file is opened, and an incomplete record at the end, from an interrupted run,
+ * is truncated. If a frame is written more than once, the last record wins. Use {@link #export(Path, String)}
+ * to extract the frames as individual PNG files for tools like 'ffmpeg'.
+ */
+public class PackFrameSink implements FrameSink {
+    private static final int MARKER = 0x54504b31; // "TPK1"
+    private static final int HEADER = 12;
+    private final Path path;
+    private final FileChannel channel;
+    private final TreeMap<Integer, Long> frames = new TreeMap<>();
+
+    public PackFrameSink(Path path) throws IOException {
+        this.path = path;
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        readIndex();
+    }
+
+    private void readIndex() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        long position = 0;
+        long size = channel.size();
+        while (position + HEADER <= size) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            int marker = header.getInt();
+            int index = header.getInt();
+            int length = header.getInt();
+            if (marker != MARKER || length < 0 || position + HEADER + length > size) break;
+            frames.put(index, position);
+            position += HEADER + length;
+        }
+        if (position < size) channel.truncate(position);
+    }
+
+    @Override
+    public void clear() throws IOException {
+        channel.truncate(0);
+        frames.clear();
+    }
+
+    @Override
+    public boolean exists(int index) {
+        return frames.containsKey(index);
+    }
+
+    @Override
+    public void write(int index, RenderedImage image) throws IOException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        byte[] data = png.toByteArray();
+        ByteBuffer record = ByteBuffer.allocate(HEADER + data.length);
+        record.putInt(MARKER).putInt(index).putInt(data.length).put(data).flip();
+        long position = channel.size();
+        while (record.hasRemaining()) {
+            channel.write(record, position + record.position());
+        }
+        frames.put(index, position);
+    }
+
+    /**
+     * Read the PNG data of a frame, or return null if the frame does not exist.
+     */
+    public byte[] read(int index) throws IOException {
+        Long position = frames.get(index);
+        if (position == null) return null;
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        channel.read(header, position);
+        ByteBuffer data = ByteBuffer.allocate(header.flip().getInt(8));
+        while (data.hasRemaining()) {
+            if (channel.read(data, position + HEADER + data.position()) < 0) break;
+        }
+        return data.array();
+    }
+
+    /**
+     * The number of frames in the pack.
+     */
+    public int size() {
+        return frames.size();
+    }
+
+    /**
+     * Write all frames to individual PNG files with names like 'name-00042.png' in the specified directory.
+     */
+    public int export(Path dir, String name) throws IOException {
+        Files.createDirectories(dir);
+        for (Map.Entry<Integer, Long> entry : frames.entrySet()) {
+            Files.write(dir.resolve(DirectoryFrameSink.fileName(name, entry.getKey())), read(entry.getKey()));
+        }
+        return frames.size();
+    }
+
+    @Override
+    public String location(int index) {
+        return path + "#" + index;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
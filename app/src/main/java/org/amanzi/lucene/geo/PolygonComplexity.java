@@ -0,0 +1,155 @@
+package org.amanzi.lucene.geo;
+
+import org.apache.lucene.geo.Polygon;
+
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Fast pre-flight analysis of a polygon, predicting how many events the tessellator will report, and how much
+ * disk space and time it will take to render them as images with a given configuration. The analysis only walks
+ * the vertices once, so it can be run on every polygon before deciding how, or whether, to render it, and batch
+ * jobs can be ordered by their expected cost.
+ * <p>
+ * The predictions are models fitted to measurements of the test shapes in this project, rendered with
+ * {@link TriangulationMonitor}. The number of frames grows faster than the number of vertices, and is a least-squares
+ * fit in log space of the larger polygons, from 'lucene-10563-1' (70 vertices, 439 frames) to
+ * 'lucene-10470-3' (2188 vertices, 23209 frames). Polygons of the same size can still differ by a factor of two,
+ * like 'lucene-10470-2' (861 vertices, only 2632 frames). The size and time per frame grow more slowly than the number
+ * of pixels, since most of the image is background, and labels add about 20% to both.
+ */
+public class PolygonComplexity {
+    static final double FRAME_FACTOR = 1.17;
+    static final double FRAME_EXPONENT = 1.25;
+    static final double REFERENCE_PIXELS = 1500 * 1000;
+    static final double REFERENCE_BYTES = 38 * 1024;
+    static final double REFERENCE_MILLIS = 70;
+    static final double BYTES_EXPONENT = 0.62;
+    static final double MILLIS_EXPONENT = 0.82;
+    static final double LABELS_FACTOR = 1.2;
+    /**
+     * Above this number of vertices, or with less than this many pixels per vertex, labels overlap too much to read.
+     */
+    static final int MAX_LABELLED_VERTICES = 500;
+    static final int MIN_PIXELS_PER_LABEL = 40 * 40;
+    static final int MIN_WIDTH = 300;
+    static final int MIN_HEIGHT = 200;
+    private final String name;
+    private final int vertices;
+    private final int holes;
+    private final double aspectRatio;
+
+    public PolygonComplexity(String name, Polygon polygon) {
+        this.name = name;
+        this.holes = polygon.numHoles();
+        int count = polygon.numPoints() - 1;
+        for (Polygon hole : polygon.getHoles()) {
+            count += hole.numPoints() - 1;
+        }
+        this.vertices = count;
+        double width = polygon.maxLon - polygon.minLon;
+        double height = polygon.maxLat - polygon.minLat;
+        this.aspectRatio = height > 0 ? width / height : Double.POSITIVE_INFINITY;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The number of distinct vertices in the polygon and all its holes.
+     */
+    public int getVertices() {
+        return vertices;
+    }
+
+    public int getHoles() {
+        return holes;
+    }
+
+    /**
+     * The width of the bounding box divided by its height, in degrees.
+     */
+    public double getAspectRatio() {
+        return aspectRatio;
+    }
+
+    /**
+     * The number of vertices per 100x100 pixels of the image area inside the margin, which is the area the
+     * bounding box of the polygon is stretched to fill.
+     */
+    public double density(TriangulationMonitor.Config config) {
+        return vertices * 10000.0 / drawablePixels(config);
+    }
+
+    /**
+     * The expected number of tessellator events, and so of frames rendered by the {@link TriangulationMonitor}.
+     */
+    public long expectedFrames() {
+        return Math.max(1, Math.round(FRAME_FACTOR * Math.pow(vertices, FRAME_EXPONENT)));
+    }
+
+    public long estimatedBytes(TriangulationMonitor.Config config) {
+        double perFrame = REFERENCE_BYTES * Math.pow(config.width * config.height / REFERENCE_PIXELS, BYTES_EXPONENT);
+        return Math.round(expectedFrames() * perFrame * (config.labels ? LABELS_FACTOR : 1));
+    }
+
+    public long estimatedMillis(TriangulationMonitor.Config config) {
+        double perFrame = REFERENCE_MILLIS * Math.pow(config.width * config.height / REFERENCE_PIXELS, MILLIS_EXPONENT);
+        return Math.round(expectedFrames() * perFrame * (config.labels ? LABELS_FACTOR : 1));
+    }
+
+    /**
+     * Returns true if the vertex labels would still be readable with this configuration.
+     */
+    public boolean canLabel(TriangulationMonitor.Config config) {
+        return vertices <= MAX_LABELLED_VERTICES && drawablePixels(config) / vertices >= MIN_PIXELS_PER_LABEL;
+    }
+
+    /**
+     * Adjust the configuration to suit this polygon, turning labels off if they would not be readable, and reducing
+     * the resolution, down to a minimum of 300x200, until the estimated size of all images fits in the budget.
+     */
+    public TriangulationMonitor.Config recommend(TriangulationMonitor.Config config, long budgetBytes) {
+        if (config.labels && !canLabel(config)) {
+            config = config.withoutLabels();
+        }
+        while (estimatedBytes(config) > budgetBytes && config.width > MIN_WIDTH && config.height > MIN_HEIGHT) {
+            double scale = Math.max(0.8, Math.max((double) MIN_WIDTH / config.width, (double) MIN_HEIGHT / config.height));
+            config = config.withSize((int) (config.width * scale), (int) (config.height * scale), (int) (config.margin * scale));
+        }
+        return config;
+    }
+
+    public String report(TriangulationMonitor.Config config) {
+        return String.format(Locale.ROOT, "%s: %d vertices, %d holes, aspect ratio %.2f, density %.2f per 100x100 pixels,"
+                        + " expect %d frames, %s and %s at %s",
+                name, vertices, holes, aspectRatio, density(config), expectedFrames(),
+                formatBytes(estimatedBytes(config)), formatMillis(estimatedMillis(config)), config.settings());
+    }
+
+    /**
+     * Orders polygons from the fastest to the slowest to render, each with the configuration it will be rendered with,
+     * which can differ per polygon when using {@link #recommend}.
+     */
+    public static Comparator<PolygonComplexity> byEstimatedMillis(Function<PolygonComplexity, TriangulationMonitor.Config> configs) {
+        return Comparator.comparingLong(complexity -> complexity.estimatedMillis(configs.apply(complexity)));
+    }
+
+    private static double drawablePixels(TriangulationMonitor.Config config) {
+        return Math.max(1, config.width - 2 * config.margin) * (double) Math.max(1, config.height - 2 * config.margin);
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 1024 * 1024) return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        if (bytes < 1024 * 1024 * 1024) return String.format(Locale.ROOT, "%.1f MB", bytes / 1024.0 / 1024);
+        return String.format(Locale.ROOT, "%.1f GB", bytes / 1024.0 / 1024 / 1024);
+    }
+
+    static String formatMillis(long millis) {
+        if (millis < 60 * 1000) return String.format(Locale.ROOT, "%.1f s", millis / 1000.0);
+        if (millis < 60 * 60 * 1000) return String.format(Locale.ROOT, "%.1f min", millis / 60000.0);
+        return String.format(Locale.ROOT, "%.1f h", millis / 3600000.0);
+    }
+}
@@ -0,0 +1,58 @@
+package org.amanzi.lucene.geo;
+
+import org.apache.lucene.geo.Polygon;
+
+/**
+ * Maps longitude and latitude onto image coordinates, fitting the bounding box of the polygon (plus margin)
+ * to the configured image size, or the configured view when zooming in on a region. Shared by all renderers
+ * so that they produce images with the same layout.
+ */
+class Projection {
+    private final int width;
+    private final int height;
+    private final double left;
+    private final double right;
+    private final double top;
+    private final double bottom;
+
+    Projection(Polygon polygon, TriangulationMonitor.Config config) {
+        this.width = config.width;
+        this.height = config.height;
+        double minLat = config.view == null ? polygon.minLat : config.view.minLat;
+        double maxLat = config.view == null ? polygon.maxLat : config.view.maxLat;
+        double minLon = config.view == null ? polygon.minLon : config.view.minLon;
+        double maxLon = config.view == null ? polygon.maxLon : config.view.maxLon;
+        double latRange = maxLat - minLat;
+        double lonRange = maxLon - minLon;
+        double latMargin = latRange * config.margin / config.height;
+        double lonMargin = lonRange * config.margin / config.width;
+        this.left = minLon - lonMargin;
+        this.right = maxLon + lonMargin;
+        this.bottom = minLat - latMargin;
+        this.top = maxLat + latMargin;
+    }
+
+    int x(double lon) {
+        return (int) (xFactor(lon) * width);
+    }
+
+    int y(double lat) {
+        return height - (int) (yFactor(lat) * height);
+    }
+
+    double preciseX(double lon) {
+        return xFactor(lon) * width;
+    }
+
+    double preciseY(double lat) {
+        return height - yFactor(lat) * height;
+    }
+
+    private double xFactor(double lon) {
+        return (lon - left) / (right - left);
+    }
+
+    private double yFactor(double lat) {
+        return (lat - bottom) / (top - bottom);
+    }
+}
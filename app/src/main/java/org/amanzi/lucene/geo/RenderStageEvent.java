@@ -0,0 +1,37 @@
+package org.amanzi.lucene.geo;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event recorded by the {@link TriangulationMonitor} for each stage of rendering a frame:
+ * drawing the base image, laying out and drawing labels, and encoding the PNG file.
+ */
+@Name("org.amanzi.lucene.geo.RenderStage")
+@Label("Render Stage")
+@Category({"Lucene", "Tessellator"})
+@StackTrace(false)
+class RenderStageEvent extends Event {
+    static final String DRAW = "draw";
+    static final String LABELS = "labels";
+    static final String ENCODE = "encode";
+
+    @Label("Name")
+    String name;
+
+    @Label("Frame")
+    int frame;
+
+    @Label("Stage")
+    String stage;
+
+    static RenderStageEvent start(String name, int frame, String stage) {
+        RenderStageEvent event = new RenderStageEvent();
+        if (event.isEnabled()) {
+            event.name = name;
+            event.frame = frame;
+            event.stage = stage;
+        }
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,245 @@
+package org.amanzi.lucene.geo;
+
+import org.apache.lucene.geo.Point;
+import org.apache.lucene.geo.Polygon;
+import org.apache.lucene.geo.Tessellator;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the triangulation as a single self-contained animated SVG file, instead of one PNG per step.
+ * The polygon and holes are written once, and each event only adds the elements that changed: new triangles
+ * become visible at the time of the event and remain visible, each edge of the linked-list is visible from the step
+ * it was added in until the step it was removed in, and split overlays and status text are only visible for the
+ * duration of their step. This means the file size grows with the number of
+ * changes rather than with the number of frames multiplied by the image size, and the result can be zoomed
+ * without losing detail. The animation uses SMIL timing, so can be played in any modern browser.
+ */
+public class SvgTriangulationMonitor implements Tessellator.Monitor, Closeable {
+    public static final double DEFAULT_FRAME_DURATION = 0.2;
+    private final String name;
+    private final TriangulationMonitor.Config config;
+    private final Projection projection;
+    private final double frameDuration;
+    private final Path svgPath;
+    private final Writer writer;
+    private final Deque<Split> splits = new ArrayDeque<>();
+    private final Map<Edge, Deque<Integer>> edges = new HashMap<>();
+    private int index;
+    private int triangles;
+    private boolean closed;
+
+    public SvgTriangulationMonitor(String name, Polygon polygon, TriangulationMonitor.Config config) {
+        this(name, polygon, config, DEFAULT_FRAME_DURATION);
+    }
+
+    public SvgTriangulationMonitor(String name, Polygon polygon, TriangulationMonitor.Config config, double frameDuration) {
+        this.name = name;
+        this.config = config;
+        this.projection = new Projection(polygon, config);
+        this.frameDuration = frameDuration;
+        File dir = config.path.resolve(name).toFile();
+        dir.mkdirs();
+        this.svgPath = dir.toPath().resolve(name + ".svg");
+        if (config.verbose) System.out.println("Saving animation: " + svgPath);
+        try {
+            this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(svgPath.toFile()), StandardCharsets.UTF_8));
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException("Failed to create animation '" + svgPath + "': " + e.getMessage(), e);
+        }
+        write(String.format("""
+                <svg xmlns="http://www.w3.org/2000/svg" width="%d" height="%d" viewBox="0 0 %d %d">
+                <style>
+                  .polygon { fill: #80d0d0; stroke: lightgray; stroke-width: 8; }
+                  .hole { fill: #a0d0f0; stroke: lightgray; stroke-width: 8; }
+                  .triangle { fill: rgba(255, 0, 0, 0.2); stroke: red; stroke-width: 2; }
+                  .points { fill: none; stroke: white; stroke-width: 2; }
+                  .left { fill: none; stroke: cyan; stroke-width: 8; }
+                  .right { fill: none; stroke: lime; stroke-width: 5; }
+                  .diagonal { fill: none; stroke: blue; stroke-width: 5; }
+                  .status { fill: white; font: 40px sans-serif; text-anchor: end; }
+                </style>
+                <rect width="100%%" height="100%%" fill="#a0d0f0"/>
+                """, config.width, config.height, config.width, config.height));
+        writePolygon("polygon", polygon);
+        for (Polygon hole : polygon.getHoles()) {
+            writePolygon("hole", hole);
+        }
+        writeStatus(null, false);
+        index++;
+    }
+
+    @Override
+    public void currentState(String status, List<Point> points, List<Tessellator.Triangle> tessellation) {
+        if (tessellation != null) {
+            // The tessellator only ever appends to the list, so only the new triangles need to be written
+            for (int i = Math.min(triangles, tessellation.size()); i < tessellation.size(); i++) {
+                Tessellator.Triangle t = tessellation.get(i);
+                StringBuilder d = new StringBuilder();
+                for (int j = 0; j < 3; j++) {
+                    appendPoint(d.append(j == 0 ? 'M' : 'L'), t.getX(j), t.getY(j));
+                }
+                write("<path class=\"triangle\" visibility=\"hidden\" d=\"" + d + "Z\">" + visibleFrom(index, -1) + "</path>\n");
+            }
+            triangles = tessellation.size();
+        }
+        updateEdges(points);
+        boolean finished = TriangulationMonitor.isFinished(status);
+        writeStatus(status, finished);
+        index++;
+        if (finished) close();
+    }
+
+    @Override
+    public void startSplit(String status, List<Point> leftPolygon, List<Point> rightPolygon) {
+        splits.push(new Split(index, leftPolygon, rightPolygon));
+        updateEdges(null);
+        writeStatus(status, false);
+        index++;
+    }
+
+    @Override
+    public void endSplit(String status) {
+        Split split = splits.pop();
+        int frames = Math.max(1, index - split.start);
+        StringBuilder diagonal = new StringBuilder();
+        appendPoint(diagonal.append('M'), split.left.get(0).getLon(), split.left.get(0).getLat());
+        appendPoint(diagonal.append('L'), split.right.get(0).getLon(), split.right.get(0).getLat());
+        write("<g visibility=\"hidden\">" + visibleFrom(split.start, frames) + "\n");
+        write("<path class=\"left\" d=\"" + path(split.left) + "\"/>\n");
+        write("<path class=\"right\" d=\"" + path(split.right) + "\"/>\n");
+        write("<path class=\"diagonal\" d=\"" + diagonal + "\"/>\n</g>\n");
+    }
+
+    /**
+     * Finish the SVG document, see {@link TriangulationMonitor#close()}.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        while (!splits.isEmpty()) endSplit(null);
+        updateEdges(null);
+        write("</svg>\n");
+        closed = true;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write animation '" + svgPath + "': " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Write the edges that are no longer in the linked-list, visible from the step they were added,
+     * and remember when the new edges were added. The same edge can be in the list more than once.
+     */
+    private void updateEdges(List<Point> points) {
+        Map<Edge, Integer> current = new HashMap<>();
+        if (points != null) {
+            for (int i = 0; i < points.size(); i++) {
+                Point a = points.get(i);
+                Point b = points.get((i + 1) % points.size());
+                current.merge(new Edge(a.getLon(), a.getLat(), b.getLon(), b.getLat()), 1, Integer::sum);
+            }
+        }
+        for (Iterator<Map.Entry<Edge, Deque<Integer>>> it = edges.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Edge, Deque<Integer>> entry = it.next();
+            Deque<Integer> starts = entry.getValue();
+            while (starts.size() > current.getOrDefault(entry.getKey(), 0)) {
+                writeEdge(entry.getKey(), starts.pop());
+            }
+            if (starts.isEmpty()) it.remove();
+        }
+        for (Map.Entry<Edge, Integer> entry : current.entrySet()) {
+            Deque<Integer> starts = edges.computeIfAbsent(entry.getKey(), k -> new ArrayDeque<>());
+            while (starts.size() < entry.getValue()) starts.push(index);
+        }
+    }
+
+    private void writeEdge(Edge edge, int start) {
+        StringBuilder d = new StringBuilder();
+        appendPoint(d.append('M'), edge.aLon, edge.aLat);
+        appendPoint(d.append('L'), edge.bLon, edge.bLat);
+        write("<path class=\"points\" visibility=\"hidden\" d=\"" + d + "\">" + visibleFrom(start, Math.max(1, index - start)) + "</path>\n");
+    }
+
+    private void writePolygon(String styleClass, Polygon polygon) {
+        double[] lats = polygon.getPolyLats();
+        double[] lons = polygon.getPolyLons();
+        StringBuilder d = new StringBuilder();
+        for (int i = 0; i < lats.length; i++) {
+            appendPoint(d.append(i == 0 ? 'M' : 'L'), lons[i], lats[i]);
+        }
+        write("<path class=\"" + styleClass + "\" d=\"" + d + "Z\"/>\n");
+    }
+
+    private void writeStatus(String status, boolean freeze) {
+        String text = index + ": " + escape(name) + (status == null ? "" : ", " + escape(status));
+        write("<text class=\"status\" x=\"" + (config.width - config.margin) + "\" y=\"" + (config.height - config.margin)
+                + "\" visibility=\"hidden\">" + visibleFrom(index, freeze ? -1 : 1) + text + "</text>\n");
+    }
+
+    /**
+     * SMIL animation making the parent element visible at the time of the specified frame,
+     * either for the specified number of frames, or until the end of the animation if frames is negative.
+     */
+    private String visibleFrom(int frame, int frames) {
+        String begin = "<set attributeName=\"visibility\" to=\"visible\" begin=\"" + seconds(frame) + "s\"";
+        return frames < 0 ? begin + " fill=\"freeze\"/>" : begin + " dur=\"" + seconds(frames) + "s\"/>";
+    }
+
+    private String seconds(int frames) {
+        return Double.toString(Math.round(frames * frameDuration * 1000) / 1000.0);
+    }
+
+    private String path(List<Point> points) {
+        StringBuilder d = new StringBuilder();
+        for (int i = 0; i < points.size(); i++) {
+            appendPoint(d.append(i == 0 ? 'M' : 'L'), points.get(i).getLon(), points.get(i).getLat());
+        }
+        return d.append('Z').toString();
+    }
+
+    private void appendPoint(StringBuilder d, double lon, double lat) {
+        d.append(round(projection.preciseX(lon))).append(',').append(round(projection.preciseY(lat)));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private void write(String text) {
+        if (closed) return;
+        try {
+            writer.write(text);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write animation '" + svgPath + "': " + e.getMessage(), e);
+        }
+    }
+
+    private record Edge(double aLon, double aLat, double bLon, double bLat) {
+    }
+
+    private static class Split {
+        private final int start;
+        private final List<Point> left;
+        private final List<Point> right;
+
+        private Split(int start, List<Point> left, List<Point> right) {
+            this.start = start;
+            this.left = left;
+            this.right = right;
+        }
+    }
+}
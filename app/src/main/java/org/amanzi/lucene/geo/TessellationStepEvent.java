@@ -0,0 +1,20 @@
+package org.amanzi.lucene.geo;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event recorded by the {@link JfrMonitor} for the time the tessellator spent between two callbacks,
+ * which is the time spent in the algorithm itself, excluding the monitor.
+ */
+@Name("org.amanzi.lucene.geo.TessellationStep")
+@Label("Tessellation Step")
+@Category({"Lucene", "Tessellator"})
+@StackTrace(false)
+class TessellationStepEvent extends Event {
+    @Label("Name")
+    String name;
+
+    @Label("Status")
+    @Description("Status reported by the callback that ended this step")
+    String status;
+}
@@ -2,82 +2,147 @@ package org.amanzi.lucene.geo;
 
 import org.apache.lucene.geo.Point;
 import org.apache.lucene.geo.Polygon;
+import org.apache.lucene.geo.Rectangle;
 import org.apache.lucene.geo.Tessellator;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.geom.Area;
 import java.awt.geom.Path2D;
 import java.awt.image.BufferedImage;
-import java.io.File;
+import java.io.Closeable;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.*;
 
-public class TriangulationMonitor implements Tessellator.Monitor {
+public class TriangulationMonitor implements Tessellator.Monitor, FilteringMonitor.Numbered, Closeable {
     private final String name;
     private final Config config;
     private final Polygon polygon;
     private List<Point> leftPoints;
     private List<Point> rightPoints;
     private List<Point> diagonalPoints;
+    private final Projection projection;
+    private final FrameSink sink;
     private int index;
-    private double left = 0;
-    private double right = 0;
-    private double top = 0;
-    private double bottom = 0;
+    private Checkpoint resumeFrom;
+    private int checkpointed;
     //private List<Point> original;
-    private final Color background = Color.decode("#a0d0f0");
-    private final Color fillColor = Color.decode("#80d0d0");
+    /**
+     * Each split is drawn as three images with the two parts of the polygon, and three more with the diagonal.
+     */
+    static final int SPLIT_FRAMES = 6;
+    static final Color BACKGROUND = Color.decode("#a0d0f0");
+    static final Color FILL_COLOR = Color.decode("#80d0d0");
 
     public TriangulationMonitor(String name, Polygon polygon, Config config) {
+        this(name, polygon, config, createSink(name, config));
+    }
+
+    public TriangulationMonitor(String name, Polygon polygon, Config config, FrameSink sink) {
         this.name = name;
         this.polygon = polygon;
         this.config = config;
+        this.sink = sink;
         this.index = 0;
-        initializeScale(polygon);
-        initializeImageDirectory();
+        this.projection = new Projection(polygon, config);
+        if (config.resume) {
+            this.resumeFrom = loadCheckpoint();
+        } else {
+            initializeImageDirectory();
+        }
         // Draw first slide with only polygon
         currentState(null, null, null);
     }
 
+    private static FrameSink createSink(String name, Config config) {
+        Path dir = config.path.resolve(name);
+        if (config.pack) {
+            try {
+                return new PackFrameSink(dir.resolve(name + ".pack"));
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to open pack file in '" + dir + "': " + e.getMessage(), e);
+            }
+        } else {
+            return new DirectoryFrameSink(dir, name);
+        }
+    }
+
     private void initializeImageDirectory() {
-        File dir = config.path.resolve(name).toFile();
-        dir.mkdirs();
-        int count = 0, deleted = 0;
-        for (File file : Objects.requireNonNull(dir.listFiles((d, n) -> n.startsWith(name)))) {
-            if (file.delete()) deleted++;
-            count++;
+        try {
+            Files.createDirectories(config.path.resolve(name));
+            sink.clear();
+            Files.deleteIfExists(checkpointPath());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to remove previous images from '" + sink.location(0) + "': " + e.getMessage(), e);
         }
-        if (deleted < count)
-            throw new IllegalStateException("Failed to delete " + (count - deleted) + " of " + count + " files in " + dir);
     }
 
-    private void initializeScale(Polygon polygon) {
-        double latRange = polygon.maxLat - polygon.minLat;
-        double lonRange = polygon.maxLon - polygon.minLon;
-        double latMargin = latRange * config.margin / config.height;
-        double lonMargin = lonRange * config.margin / config.width;
-        this.left = polygon.minLon - lonMargin;
-        this.right = polygon.maxLon + lonMargin;
-        this.bottom = polygon.minLat - latMargin;
-        this.top = polygon.maxLat + latMargin;
+    private Path checkpointPath() {
+        return config.path.resolve(name).resolve(name + ".checkpoint");
     }
 
-    private int x(double lon) {
-        double factor = (lon - left) / (right - left);
-        return (int) (factor * config.width);
+    /**
+     * Resuming never deletes existing images, so if they cannot be resumed, because the checkpoint is unreadable or
+     * was made with different settings, this fails instead, and the run has to be started again without resuming.
+     * Without a checkpoint or images, there is nothing to resume, and rendering starts from the first image.
+     */
+    private Checkpoint loadCheckpoint() {
+        Path path = checkpointPath();
+        Checkpoint checkpoint = Checkpoint.load(path);
+        String problem = null;
+        if (checkpoint == null && Files.exists(path)) {
+            problem = "Unreadable checkpoint '" + path + "'";
+        } else if (checkpoint == null && sink.exists(0)) {
+            problem = "No checkpoint for the existing images in '" + sink.location(0) + "'";
+        } else if (checkpoint != null && !checkpoint.settings.equals(config.settings())) {
+            problem = "Checkpoint '" + path + "' was made with different settings: " + checkpoint.settings;
+        }
+        if (problem != null) failResume(problem);
+        try {
+            Files.createDirectories(config.path.resolve(name));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create image directory '" + config.path.resolve(name) + "': " + e.getMessage(), e);
+        }
+        if (checkpoint == null) {
+            if (config.verbose) System.out.println("No checkpoint found, starting from the first image: " + path);
+        } else if (config.verbose) {
+            System.out.println("Resuming after checkpoint at image " + checkpoint.index);
+        }
+        return checkpoint;
     }
 
-    private int y(double lat) {
-        double factor = (lat - bottom) / (top - bottom);
-        return config.height - (int) (factor * config.height);
+    private void failResume(String problem) {
+        try {
+            sink.close();
+        } catch (IOException e) {
+            // The problem with resuming is more useful to report
+        }
+        throw new IllegalStateException(problem + ", run again without resuming to render all images");
     }
 
-    private String fileName() {
-        String indexString = "0000" + index;
-        return name + "-" + indexString.substring(indexString.length() - 5) + ".png";
+    /**
+     * When resuming, existing images can be skipped, since images are only ever written completely.
+     * Missing images before the checkpoint are rendered, and rendering continues from the first missing image after it.
+     * If the replayed events do not match the checkpoint, the existing images are from a different run, so this fails.
+     */
+    private boolean canSkip(String status, List<Tessellator.Triangle> tessellation) {
+        if (resumeFrom == null) return false;
+        if (index == resumeFrom.index - 1 && !resumeFrom.matches(status, tessellation == null ? 0 : tessellation.size())) {
+            failResume("Events do not match checkpoint '" + checkpointPath() + "' at image " + index);
+        }
+        if (sink.exists(index)) return true;
+        if (index >= resumeFrom.index) resumeFrom = null;
+        return false;
+    }
+
+    private int x(double lon) {
+        return projection.x(lon);
+    }
+
+    private int y(double lat) {
+        return projection.y(lat);
     }
 
     private void drawTriangles(Graphics2D graphics, Color color, Stroke stroke, List<Tessellator.Triangle> tessellation) {
@@ -101,32 +166,89 @@ public class TriangulationMonitor implements Tessellator.Monitor {
     }
 
     public static class Config {
-        private final Path path;
-        private final int width;
-        private final int height;
-        private final int margin;
-        private final boolean verbose;
-        private final boolean labels;
+        final Path path;
+        final int width;
+        final int height;
+        final int margin;
+        final boolean verbose;
+        final boolean labels;
+        final boolean resume;
+        final boolean pack;
+        final Rectangle view;
+        final FilteringMonitor.Filter filter;
 
         public Config(Path path, int width, int height, int margin) {
             this(path, width, height, margin, false, false);
         }
 
         public Config(Path path, int width, int height, int margin, boolean verbose, boolean labels) {
+            this(path, width, height, margin, verbose, labels, false, false, null, FilteringMonitor.Filter.ALL);
+        }
+
+        private Config(Path path, int width, int height, int margin, boolean verbose, boolean labels, boolean resume, boolean pack, Rectangle view,
+                       FilteringMonitor.Filter filter) {
             this.path = path;
             this.width = width;
             this.height = height;
             this.margin = margin;
             this.verbose = verbose;
             this.labels = labels;
+            this.resume = resume;
+            this.pack = pack;
+            this.view = view;
+            this.filter = filter;
         }
 
         public Config withLabels() {
-            return new Config(this.path, this.width, this.height, this.margin, this.verbose, true);
+            return new Config(this.path, this.width, this.height, this.margin, this.verbose, true, this.resume, this.pack, this.view, this.filter);
+        }
+
+        public Config withoutLabels() {
+            return new Config(this.path, this.width, this.height, this.margin, this.verbose, false, this.resume, this.pack, this.view, this.filter);
+        }
+
+        public Config withSize(int width, int height, int margin) {
+            return new Config(this.path, width, height, margin, this.verbose, this.labels, this.resume, this.pack, this.view, this.filter);
         }
 
         public Config makeVerbose() {
-            return new Config(this.path, this.width, this.height, this.margin, true, this.labels);
+            return new Config(this.path, this.width, this.height, this.margin, true, this.labels, this.resume, this.pack, this.view, this.filter);
+        }
+
+        /**
+         * Keep existing images and only render the missing ones, as long as they were made with the same settings.
+         */
+        public Config withResume() {
+            return new Config(this.path, this.width, this.height, this.margin, this.verbose, this.labels, true, this.pack, this.view, this.filter);
+        }
+
+        /**
+         * Write all images into a single pack file, instead of one file per image.
+         */
+        public Config withPack() {
+            return new Config(this.path, this.width, this.height, this.margin, this.verbose, this.labels, this.resume, true, this.view, this.filter);
+        }
+
+        /**
+         * Zoom in on this region instead of showing the whole polygon.
+         */
+        public Config withView(Rectangle view) {
+            return new Config(this.path, this.width, this.height, this.margin, this.verbose, this.labels, this.resume, this.pack, view, this.filter);
+        }
+
+        /**
+         * Only render the events matching the filter, by wrapping the monitor in a {@link FilteringMonitor}.
+         */
+        public Config withFilter(FilteringMonitor.Filter filter) {
+            return new Config(this.path, this.width, this.height, this.margin, this.verbose, this.labels, this.resume, this.pack, this.view, filter);
+        }
+
+        /**
+         * The settings that affect the images, used to decide if images from a previous run can be reused.
+         */
+        String settings() {
+            return width + "x" + height + ", margin " + margin + ", labels " + labels + ", pack " + pack + (view == null ? "" : ", view " + view)
+                    + (filter.isAll() ? "" : ", filter " + filter);
         }
     }
 
@@ -240,9 +362,9 @@ public class TriangulationMonitor implements Tessellator.Monitor {
     }
 
     private void drawPolygon(Graphics2D graphics, List<Label> labels, Color color, Stroke stroke, boolean useLabels, boolean holeLabels) {
-        drawPolygon(graphics, labels, color, fillColor, stroke, this.polygon, useLabels ? "S" : null, 1);
+        drawPolygon(graphics, labels, color, FILL_COLOR, stroke, this.polygon, useLabels ? "S" : null, 1);
         for (Polygon hole : polygon.getHoles()) {
-            drawPolygon(graphics, labels, color, background, stroke, hole, holeLabels ? "H" : null, -1);
+            drawPolygon(graphics, labels, color, BACKGROUND, stroke, hole, holeLabels ? "H" : null, -1);
         }
     }
 
@@ -296,7 +418,7 @@ public class TriangulationMonitor implements Tessellator.Monitor {
     }
 
     private void drawBaseImage(Graphics2D graphics, String status, List<Tessellator.Triangle> tessellation, List<Label> labels) {
-        graphics.setColor(background);
+        graphics.setColor(BACKGROUND);
         graphics.fillRect(0, 0, config.width, config.height);
         boolean ignoreHoleLabels = status != null && (status.contains("CURE") || status.contains("SPLIT"));
         drawPolygon(graphics, labels, Color.LIGHT_GRAY, new BasicStroke(8), true, !ignoreHoleLabels);
@@ -322,20 +444,66 @@ public class TriangulationMonitor implements Tessellator.Monitor {
 
     @Override
     public void currentState(String status, List<Point> points, List<Tessellator.Triangle> tessellation) {
-        Path imagePath = Path.of(config.path.resolve(name).toString(), fileName());
-        if (config.verbose) System.out.println("Saving image: " + imagePath);
+        if (canSkip(status, tessellation)) {
+            index++;
+            if (isFinished(status)) close();
+            return;
+        }
+        if (config.verbose) System.out.println("Saving image: " + sink.location(index));
         BufferedImage bi = new BufferedImage(config.width, config.height, BufferedImage.TYPE_INT_RGB);
         Graphics2D graphics = bi.createGraphics();
         ArrayList<Label> labels = new ArrayList<>();
+        RenderStageEvent draw = RenderStageEvent.start(name, index, RenderStageEvent.DRAW);
         drawBaseImage(graphics, status, tessellation, labels);
         if (points != null) drawLines(graphics, labels, Color.WHITE, new BasicStroke(2), points, true);
+        draw.commit();
+        RenderStageEvent layout = RenderStageEvent.start(name, index, RenderStageEvent.LABELS);
         drawLabels(graphics, status, labels);
+        layout.commit();
+        RenderStageEvent encode = RenderStageEvent.start(name, index, RenderStageEvent.ENCODE);
         try {
-            ImageIO.write(bi, "png", imagePath.toFile());
+            sink.write(index, bi);
         } catch (IOException e) {
-            throw new RuntimeException("Failed to write image '" + imagePath + "': " + e.getMessage(), e);
+            throw new RuntimeException("Failed to write image '" + sink.location(index) + "': " + e.getMessage(), e);
         }
+        encode.commit();
         index++;
+        boolean finished = isFinished(status);
+        // Filtered images can skip numbers, so save when passing a multiple of the interval
+        if (index / Checkpoint.INTERVAL > checkpointed / Checkpoint.INTERVAL || finished) {
+            checkpointed = index;
+            new Checkpoint(index, String.valueOf(status), tessellation == null ? 0 : tessellation.size(), config.settings()).save(checkpointPath());
+        }
+        if (finished) close();
+    }
+
+    /**
+     * Returns true for the last event of a tessellation, reporting completion or failure.
+     */
+    static boolean isFinished(String status) {
+        return status != null && (status.equals(COMPLETED) || status.contains(FAILED));
+    }
+
+    /**
+     * Close the frame sink. This happens automatically when the tessellator reports completion or failure,
+     * but should also be called if the tessellator could fail before notifying the monitor. The same applies
+     * to the other monitors that write their output when finished.
+     */
+    @Override
+    public void close() {
+        try {
+            sink.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close '" + sink.location(index) + "': " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Number the next image after the event it shows, so filtered images have the same number as in an unfiltered run.
+     */
+    @Override
+    public void skipTo(int event) {
+        index = event;
     }
 
     @Override
@@ -343,14 +511,13 @@ public class TriangulationMonitor implements Tessellator.Monitor {
         this.diagonalPoints = new ArrayList<>();
         this.leftPoints = leftPolygon;
         this.rightPoints = rightPolygon;
-        currentState(status, null, null);
-        currentState(status, null, null);
-        currentState(status, null, null);
-        this.diagonalPoints.add(leftPolygon.get(0));
-        this.diagonalPoints.add(rightPolygon.get(0));
-        currentState(status, null, null);
-        currentState(status, null, null);
-        currentState(status, null, null);
+        for (int i = 0; i < SPLIT_FRAMES; i++) {
+            if (i == SPLIT_FRAMES / 2) {
+                this.diagonalPoints.add(leftPolygon.get(0));
+                this.diagonalPoints.add(rightPolygon.get(0));
+            }
+            currentState(status, null, null);
+        }
     }
 
     @Override
@@ -2,13 +2,19 @@ package org.amanzi.lucene.geo;
 
 import org.apache.lucene.geo.Polygon;
 import org.apache.lucene.geo.PolygonUtils;
+import org.apache.lucene.geo.Rectangle;
 import org.apache.lucene.geo.Tessellator;
+import org.apache.lucene.store.ByteBuffersDirectory;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.zip.GZIPInputStream;
 
 public class TriangulationMonitorApp {
@@ -16,15 +22,38 @@ public class TriangulationMonitorApp {
     public static int DEFAULT_WIDTH = 1500;
     public static int DEFAULT_HEIGHT = 1000;
     public static int DEFAULT_MARGIN = 100;
+    public static int DEFAULT_PORT = -1;
+    public static String DEFAULT_FORMAT = "png";
+    public static long DEFAULT_BUDGET = 1024;
+    public static int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+    public static int DEFAULT_REPEAT = 10;
+    private LiveViewServer liveView;
+    private String format = DEFAULT_FORMAT;
+    private boolean auto;
+    private long budget = DEFAULT_BUDGET;
 
     public static void main(String[] args) {
         String dir = DEFAULT_DIR;
         boolean help = false;
         boolean verbose = false;
         boolean labels = false;
+        boolean resume = false;
+        boolean pack = false;
+        boolean export = false;
+        boolean analyse = false;
+        boolean auto = false;
+        boolean index = false;
         int width = DEFAULT_WIDTH;
         int height = DEFAULT_HEIGHT;
         int margin = DEFAULT_MARGIN;
+        int port = DEFAULT_PORT;
+        String format = DEFAULT_FORMAT;
+        long budget = DEFAULT_BUDGET;
+        String status = "";
+        String events = "";
+        String bbox = "";
+        int threads = DEFAULT_THREADS;
+        int repeat = DEFAULT_REPEAT;
         ArrayList<String> names = new ArrayList<>();
         for (int i = 0; i < args.length; i++) {
             if (args[i].startsWith("-")) {
@@ -32,10 +61,24 @@ public class TriangulationMonitorApp {
                     case "-h", "--help" -> help = true;
                     case "-v", "--verbose" -> verbose = true;
                     case "-l", "--labels" -> labels = true;
+                    case "-r", "--resume" -> resume = true;
+                    case "-P", "--pack" -> pack = true;
+                    case "-X", "--export" -> export = true;
+                    case "-A", "--analyse" -> analyse = true;
+                    case "-a", "--auto" -> auto = true;
                     case "-D", "--dir" -> dir = args[++i];
                     case "-W", "--width" -> width = Integer.parseInt(args[++i]);
                     case "-H", "--height" -> height = Integer.parseInt(args[++i]);
                     case "-M", "--margin" -> margin = Integer.parseInt(args[++i]);
+                    case "-S", "--serve" -> port = Integer.parseInt(args[++i]);
+                    case "-F", "--format" -> format = args[++i];
+                    case "-B", "--budget" -> budget = Long.parseLong(args[++i]);
+                    case "-s", "--status" -> status = args[++i];
+                    case "-e", "--events" -> events = args[++i];
+                    case "-b", "--bbox" -> bbox = args[++i];
+                    case "-I", "--index" -> index = true;
+                    case "-T", "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "-R", "--repeat" -> repeat = Integer.parseInt(args[++i]);
                     default -> System.err.println("Unknown option: " + args[i]);
                 }
             } else {
@@ -44,15 +87,29 @@ public class TriangulationMonitorApp {
         }
         if (help || names.size() < 1) {
             System.out.printf("""
-                    usage: polygon-triangulator-debug <--options> name1 <name2...>
+                    usage: lucene-triangulator-debug <--options> name1 <name2...>
                     options:
                         -h | --help       Output this help
                         -v | --verbose    Verbose output: %b
                         -l | --labels     Add labels to images: %b
+                        -r | --resume     Resume an interrupted run, only rendering missing images: %b
+                        -P | --pack       Write all images into a single pack file per name: %b
+                        -X | --export     Export pack files given as names to individual images: %b
+                        -A | --analyse    Only report the complexity and expected cost of each polygon: %b
+                        -a | --auto       Adjust labels and image size to each polygon, to fit the budget: %b
                         -D | --dir        Set the output directory for image files: '%s'
                         -W | --width      Set the image width: %d
                         -H | --height     Set the image height: %d
                         -M | --margin     Set the image margin: %d
+                        -S | --serve      Serve a live view on this localhost port instead of writing images: %d
+                        -F | --format     Output format, 'png' images, a single animated 'svg' or a 'summary' image: %s
+                        -B | --budget     Disk space budget in MB per polygon for the --auto option: %d
+                        -s | --status     Only render events with a status matching this regular expression: '%s'
+                        -e | --events     Only render events numbered in this window, like 200:300: '%s'
+                        -b | --bbox       Only render events in this region, zooming in on it, as minLon,minLat,maxLon,maxLat: '%s'
+                        -I | --index      Benchmark indexing all polygons as LatLonShape fields instead of rendering: %b
+                        -T | --threads    Number of indexing threads for the --index option: %d
+                        -R | --repeat     Number of times to index all polygons for the --index option: %d
                             
                     The names should either be paths to files, like src/main/resources/org/apache/lucene/geo/lucene-10563-1.geojson.gz
                     or the names (without path and extension) of files in the same package and classpath as the PolygonUtils
@@ -66,16 +123,89 @@ public class TriangulationMonitorApp {
                     For example, with a name like 'polygon-1' we will have files named 'polygon-1-0001.png' and can
                     generate a video with a command like:
                         ffmpeg -r 5 -i /tmp/tessellation/polygon-1/polygon-1-%%05d.png -c:v libx264 -vf fps=25 -pix_fmt yuv420p polygon-1.mp4
-                    %n""", verbose, labels, dir, width, height, margin, dir);
+
+                    With the --serve option no images are written. Instead the triangulation events are streamed to
+                    a viewer at http://localhost:<port>/ which can play, pause and seek through the triangulation.
+                    The server keeps running after triangulation has completed, until the process is stopped.
+
+                    With the 'svg' format, a single file like 'polygon-1/polygon-1.svg' is written instead of images.
+                    It contains the polygon once, and adds each triangle and overlay with animation timing, so
+                    the triangulation can be played back in a browser.
+
+                    With the 'summary' format, a single image like 'polygon-1/polygon-1-summary.png' is written,
+                    with triangles coloured by the order they were created, split diagonals coloured by depth,
+                    and hotspots where the triangulation needed to cure intersections, or failed.
+
+                    Progress is saved to a checkpoint file next to the images every %d images. With the --resume option
+                    existing images from an interrupted run with the same settings are kept, and only the missing
+                    images are rendered. If the checkpoint is missing, unreadable or has different settings, nothing
+                    is deleted and the name fails. Without --resume, all existing images for the name are deleted first.
+
+                    With the --pack option, all images are appended to a single file like 'polygon-1/polygon-1.pack'
+                    which is much faster than creating thousands of small files. Use the --export option with the
+                    paths to pack files as names, to extract the images into the output directory for 'ffmpeg'.
+
+                    The --analyse option reports the number of vertices and holes of each polygon, and estimates the
+                    number of images and the disk space and time needed to render them, ordered from the fastest to the
+                    slowest with the settings used for each polygon, without rendering anything. The number of images
+                    grows faster than the number of vertices, from hundreds for small polygons to tens of thousands for
+                    polygons with thousands of vertices. With the --auto option, labels are turned off for polygons
+                    with too many vertices to read them, and the image size is reduced until the estimated disk space
+                    fits within the budget, and the polygons are rendered from the fastest to the slowest.
+
+                    The --status, --events and --bbox options only render the events matching all of them, and skip
+                    the rest, which is much faster for large polygons. Events are numbered like the images of a run
+                    without these options, so the window can be taken from the image names. The region must intersect
+                    the ear being tested, or the diagonal of a split, and the images are zoomed in on the region.
+
+                    The --index option reads the polygons of all names, and indexes them into an in-memory index
+                    the given number of times, using several threads, to report the documents and triangles indexed
+                    per second, how the time was split between tessellation and indexing, and the size of the index.
+                    %n""", verbose, labels, resume, pack, export, analyse, auto, dir, width, height, margin, port, format, budget, status, events, bbox,
+                    index, threads, repeat, dir, Checkpoint.INTERVAL);
         } else {
             TriangulationMonitor.Config imageConfig = new TriangulationMonitor.Config(Path.of(dir), width, height, margin, verbose, labels);
+            if (resume) imageConfig = imageConfig.withResume();
+            if (pack) imageConfig = imageConfig.withPack();
             TriangulationMonitorApp app = new TriangulationMonitorApp();
+            app.format = format;
+            app.auto = auto;
+            app.budget = budget;
+            try {
+                FilteringMonitor.Filter filter = parseFilter(status, events, bbox);
+                imageConfig = imageConfig.withFilter(filter);
+                if (filter.region != null) imageConfig = imageConfig.withView(filter.region);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid filter: " + e.getMessage());
+                return;
+            }
+            if (analyse) {
+                app.analyse(names, imageConfig);
+                return;
+            }
+            if (index) {
+                app.benchmarkIndexing(names, threads, repeat);
+                return;
+            }
+            if (port >= 0) {
+                try {
+                    app.liveView = new LiveViewServer(port);
+                    System.out.println("Serving live view at " + app.liveView.getURL());
+                } catch (IOException e) {
+                    System.err.println("Failed to start live view server on port " + port + ": " + e.getMessage());
+                    return;
+                }
+            }
+            if (auto && !export) {
+                app.generateImagesFastestFirst(names, imageConfig);
+                return;
+            }
             for (String name : names) {
                 try {
-                    if (name.contains("/")) {
-                        app.generateImagesForTriangulationFromPath(Path.of(name), imageConfig);
+                    if (export) {
+                        app.exportImagesFromPack(Path.of(name), imageConfig);
                     } else {
-                        app.generateImagesForTriangulationFromName(name, imageConfig);
+                        app.generateImagesForTriangulation(name, imageConfig);
                     }
                 } catch (Exception e) {
                     System.err.println("Failed triangulating " + name + ": " + e.getMessage());
@@ -84,31 +214,172 @@ public class TriangulationMonitorApp {
         }
     }
 
-    private void generateImagesForTriangulationFromName(String name, TriangulationMonitor.Config imageConfig) throws IOException, ParseException {
-        String filename = name + ".geojson.gz";
-        InputStream is = PolygonUtils.class.getResourceAsStream(filename);
-        if (is == null) {
-            throw new FileNotFoundException("classpath resource not found: " + filename);
+    static FilteringMonitor.Filter parseFilter(String status, String events, String bbox) {
+        FilteringMonitor.Filter filter = FilteringMonitor.Filter.ALL;
+        if (!status.isEmpty()) filter = filter.withStatus(status);
+        if (!events.isEmpty()) {
+            String[] window = events.split(":", -1);
+            if (window.length != 2) throw new IllegalArgumentException("expected events like 'from:to' but got '" + events + "'");
+            int from = window[0].isEmpty() ? 0 : Integer.parseInt(window[0]);
+            int to = window[1].isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(window[1]);
+            filter = filter.withEvents(from, to);
+        }
+        if (!bbox.isEmpty()) {
+            String[] values = bbox.split(",");
+            if (values.length != 4) throw new IllegalArgumentException("expected bbox like 'minLon,minLat,maxLon,maxLat' but got '" + bbox + "'");
+            double minLon = Double.parseDouble(values[0]);
+            double minLat = Double.parseDouble(values[1]);
+            double maxLon = Double.parseDouble(values[2]);
+            double maxLat = Double.parseDouble(values[3]);
+            if (minLon >= maxLon || minLat >= maxLat) throw new IllegalArgumentException("bbox has no area: '" + bbox + "'");
+            filter = filter.withRegion(new Rectangle(minLat, maxLat, minLon, maxLon));
         }
-        String geoJson = readShapeFromInputStream(is, filename);
-        generateImagesForTriangulationGeoJson(name, geoJson, imageConfig);
+        return filter;
+    }
+
+    private void exportImagesFromPack(Path path, TriangulationMonitor.Config imageConfig) throws IOException {
+        if (!path.toFile().isFile()) {
+            throw new FileNotFoundException("pack file not found: " + path);
+        }
+        String name = path.getFileName().toString().split("\\.")[0];
+        try (PackFrameSink pack = new PackFrameSink(path)) {
+            int count = pack.export(imageConfig.path.resolve(name), name);
+            System.out.println("Exported " + count + " images from " + path + " to " + imageConfig.path.resolve(name));
+        }
+    }
+
+    /**
+     * Print the complexity report of the polygons for all names, ordered from the cheapest to the most expensive.
+     */
+    private void analyse(List<String> names, TriangulationMonitor.Config imageConfig) {
+        ArrayList<PolygonComplexity> reports = new ArrayList<>();
+        for (String name : names) {
+            try {
+                Polygon[] polygons = readPolygons(name);
+                for (int i = 0; i < polygons.length; i++) {
+                    reports.add(new PolygonComplexity(polygons.length > 1 ? shapeName(name) + "[" + i + "]" : shapeName(name), polygons[i]));
+                }
+            } catch (Exception e) {
+                System.err.println("Failed analysing " + name + ": " + e.getMessage());
+            }
+        }
+        Function<PolygonComplexity, TriangulationMonitor.Config> configs = complexity -> configFor(complexity, imageConfig);
+        reports.sort(PolygonComplexity.byEstimatedMillis(configs));
+        for (PolygonComplexity report : reports) {
+            System.out.println(report.report(configs.apply(report)));
+        }
+    }
+
+    /**
+     * The configuration to render the polygon with, which with the --auto option is adjusted to suit the polygon.
+     */
+    private TriangulationMonitor.Config configFor(PolygonComplexity complexity, TriangulationMonitor.Config imageConfig) {
+        return auto ? complexity.recommend(imageConfig, budget * 1024 * 1024) : imageConfig;
+    }
+
+    /**
+     * With the --auto option, read all polygons first, and render them from the fastest to the slowest with the
+     * settings recommended for each, so that the most results are available early.
+     */
+    private void generateImagesFastestFirst(List<String> names, TriangulationMonitor.Config imageConfig) {
+        Map<PolygonComplexity, Polygon> polygons = new LinkedHashMap<>();
+        for (String name : names) {
+            try {
+                for (Polygon polygon : readPolygons(name)) {
+                    polygons.put(new PolygonComplexity(shapeName(name), polygon), polygon);
+                }
+            } catch (Exception e) {
+                System.err.println("Failed triangulating " + name + ": " + e.getMessage());
+            }
+        }
+        Function<PolygonComplexity, TriangulationMonitor.Config> configs = complexity -> configFor(complexity, imageConfig);
+        List<PolygonComplexity> order = new ArrayList<>(polygons.keySet());
+        order.sort(PolygonComplexity.byEstimatedMillis(configs));
+        for (PolygonComplexity complexity : order) {
+            try {
+                TriangulationMonitor.Config polygonConfig = configs.apply(complexity);
+                System.out.println(complexity.report(polygonConfig));
+                generateImages(complexity.getName(), polygons.get(complexity), polygonConfig);
+            } catch (Exception e) {
+                System.err.println("Failed triangulating " + complexity.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void benchmarkIndexing(List<String> names, int threads, int repeat) {
+        ArrayList<Polygon> corpus = new ArrayList<>();
+        for (String name : names) {
+            try {
+                corpus.addAll(List.of(readPolygons(name)));
+            } catch (Exception e) {
+                System.err.println("Failed reading " + name + ": " + e.getMessage());
+            }
+        }
+        if (corpus.isEmpty()) return;
+        System.out.println("Indexing " + corpus.size() + " polygons " + repeat + " times with " + threads + " threads");
+        try (ByteBuffersDirectory directory = new ByteBuffersDirectory()) {
+            System.out.println(new IndexingBenchmark(corpus, threads, repeat).run(directory));
+        } catch (IOException e) {
+            System.err.println("Failed indexing: " + e.getMessage());
+        }
+    }
+
+    private void generateImagesForTriangulation(String name, TriangulationMonitor.Config imageConfig) throws ParseException, IOException {
+        for (Polygon polygon : readPolygons(name)) {
+            generateImages(shapeName(name), polygon, imageConfig);
+        }
+    }
+
+    private void generateImages(String name, Polygon polygon, TriangulationMonitor.Config imageConfig) throws IOException {
+        String wkt = PolygonUtils.toWKT(polygon);
+        System.out.println(wkt);
+        Tessellator.Monitor monitor = createMonitor(name, polygon, imageConfig);
+        try {
+            Tessellator.tessellate(polygon, true, monitor);
+        } finally {
+            if (monitor instanceof Closeable closeable) closeable.close();
+        }
+    }
+
+    /**
+     * Read the polygons from either a path to a file, or the name of a file in the same package as PolygonUtils.
+     */
+    private Polygon[] readPolygons(String name) throws ParseException, IOException {
+        if (name.contains("/")) {
+            Path path = Path.of(name);
+            String filename = path.getFileName().toString();
+            InputStream is = new FileInputStream(path.toFile());
+            return Polygon.fromGeoJSON(readShapeFromInputStream(is, filename));
+        } else {
+            String filename = name + ".geojson.gz";
+            InputStream is = PolygonUtils.class.getResourceAsStream(filename);
+            if (is == null) {
+                throw new FileNotFoundException("classpath resource not found: " + filename);
+            }
+            return Polygon.fromGeoJSON(readShapeFromInputStream(is, filename));
+        }
+    }
+
+    private static String shapeName(String name) {
+        return name.contains("/") ? Path.of(name).getFileName().toString().split("\\.")[0] : name;
     }
 
-    private void generateImagesForTriangulationFromPath(Path path, TriangulationMonitor.Config imageConfig) throws ParseException, IOException {
-        String filename = path.getFileName().toString();
-        String name = filename.split("\\.")[0];
-        InputStream is = new FileInputStream(path.toFile());
-        String geoJson = readShapeFromInputStream(is, filename);
-        generateImagesForTriangulationGeoJson(name, geoJson, imageConfig);
+    private Tessellator.Monitor createMonitor(String name, Polygon polygon, TriangulationMonitor.Config imageConfig) {
+        Tessellator.Monitor monitor = createOutputMonitor(name, polygon, imageConfig);
+        if (!imageConfig.filter.isAll()) monitor = new FilteringMonitor(monitor, imageConfig.filter);
+        return new JfrMonitor(name, monitor);
     }
 
-    private void generateImagesForTriangulationGeoJson(String name, String geoJson, TriangulationMonitor.Config imageConfig) throws ParseException {
-        Polygon[] polygons = Polygon.fromGeoJSON(geoJson);
-        for (Polygon polygon : polygons) {
-            String wkt = PolygonUtils.toWKT(polygon);
-            System.out.println(wkt);
-            Tessellator.tessellate(polygon, true, new TriangulationMonitor(name, polygon, imageConfig));
+    private Tessellator.Monitor createOutputMonitor(String name, Polygon polygon, TriangulationMonitor.Config imageConfig) {
+        if (liveView != null) {
+            return liveView.monitor(name, polygon);
         }
+        return switch (format) {
+            case "png" -> new TriangulationMonitor(name, polygon, imageConfig);
+            case "svg" -> new SvgTriangulationMonitor(name, polygon, imageConfig);
+            case "summary" -> new TriangulationSummary(name, polygon, imageConfig);
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
     }
 
     private String readShapeFromInputStream(InputStream is, String filename) throws IOException {
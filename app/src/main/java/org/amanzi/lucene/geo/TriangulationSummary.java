@@ -0,0 +1,207 @@
+package org.amanzi.lucene.geo;
+
+import org.apache.lucene.geo.Point;
+import org.apache.lucene.geo.Polygon;
+import org.apache.lucene.geo.Tessellator;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renders a single summary image of the whole triangulation, instead of one image per step. Triangles are coloured
+ * by the order in which they were emitted (blue first, red last), split diagonals are overlaid with a colour and width
+ * depending on the depth of the split, and the locations the tessellator visited while curing local intersections,
+ * or where it failed, are marked as hotspots. The events are only recorded during triangulation, and the image is
+ * drawn once when the tessellator reports completion or failure, making this cheap enough to use on every polygon.
+ */
+public class TriangulationSummary implements Tessellator.Monitor, Closeable {
+    private static final Color[] SPLIT_COLORS = {Color.BLUE, Color.MAGENTA, Color.ORANGE, Color.GREEN, Color.CYAN};
+    private static final Color CURE_COLOR = new Color(255, 160, 0, 60);
+    private static final Color FAILED_COLOR = Color.MAGENTA;
+    private final String name;
+    private final Polygon polygon;
+    private final TriangulationMonitor.Config config;
+    private final Projection projection;
+    private final List<Split> splits = new ArrayList<>();
+    private final List<Point> cures = new ArrayList<>();
+    private final List<Point> failures = new ArrayList<>();
+    private List<Tessellator.Triangle> tessellation = List.of();
+    private String status;
+    private int events;
+    private boolean rendered;
+
+    public TriangulationSummary(String name, Polygon polygon, TriangulationMonitor.Config config) {
+        this.name = name;
+        this.polygon = polygon;
+        this.config = config;
+        this.projection = new Projection(polygon, config);
+    }
+
+    @Override
+    public void currentState(String status, List<Point> points, List<Tessellator.Triangle> tessellation) {
+        events++;
+        this.status = status;
+        if (tessellation != null) this.tessellation = tessellation;
+        Point current = points == null || points.isEmpty() ? null : points.get(0);
+        if (status != null && current != null) {
+            if (status.contains(FAILED)) failures.add(current);
+            else if (status.startsWith("CURE")) cures.add(current);
+        }
+        if (TriangulationMonitor.isFinished(status)) close();
+    }
+
+    @Override
+    public void startSplit(String status, List<Point> leftPolygon, List<Point> rightPolygon) {
+        events++;
+        splits.add(new Split(depth(status), leftPolygon.get(0), rightPolygon.get(0)));
+    }
+
+    @Override
+    public void endSplit(String status) {
+    }
+
+    /**
+     * Draw the summary image, if not already drawn, see {@link TriangulationMonitor#close()}.
+     */
+    @Override
+    public void close() {
+        if (rendered) return;
+        rendered = true;
+        File dir = config.path.resolve(name).toFile();
+        dir.mkdirs();
+        Path imagePath = dir.toPath().resolve(name + "-summary.png");
+        if (config.verbose) System.out.println("Saving summary: " + imagePath);
+        BufferedImage bi = new BufferedImage(config.width, config.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = bi.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setColor(TriangulationMonitor.BACKGROUND);
+        graphics.fillRect(0, 0, config.width, config.height);
+        drawPolygon(graphics, polygon, TriangulationMonitor.FILL_COLOR);
+        for (Polygon hole : polygon.getHoles()) {
+            drawPolygon(graphics, hole, TriangulationMonitor.BACKGROUND);
+        }
+        drawTriangles(graphics);
+        drawSplits(graphics);
+        drawHotspots(graphics, cures, CURE_COLOR, 10);
+        drawHotspots(graphics, failures, FAILED_COLOR, 30);
+        drawLegend(graphics);
+        try {
+            ImageIO.write(bi, "png", imagePath.toFile());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write image '" + imagePath + "': " + e.getMessage(), e);
+        }
+    }
+
+    private void drawPolygon(Graphics2D graphics, Polygon polygon, Color fillColor) {
+        double[] lats = polygon.getPolyLats();
+        double[] lons = polygon.getPolyLons();
+        Path2D shape = new Path2D.Double();
+        for (int i = 0; i < lats.length; i++) {
+            if (i == 0) {
+                shape.moveTo(projection.x(lons[i]), projection.y(lats[i]));
+            } else {
+                shape.lineTo(projection.x(lons[i]), projection.y(lats[i]));
+            }
+        }
+        shape.closePath();
+        graphics.setStroke(new BasicStroke(8));
+        graphics.setColor(fillColor);
+        graphics.fill(shape);
+        graphics.setColor(Color.LIGHT_GRAY);
+        graphics.draw(shape);
+    }
+
+    private void drawTriangles(Graphics2D graphics) {
+        graphics.setStroke(new BasicStroke(1));
+        for (int i = 0; i < tessellation.size(); i++) {
+            Tessellator.Triangle t = tessellation.get(i);
+            Path2D.Double triangle = new Path2D.Double();
+            triangle.moveTo(projection.x(t.getX(0)), projection.y(t.getY(0)));
+            triangle.lineTo(projection.x(t.getX(1)), projection.y(t.getY(1)));
+            triangle.lineTo(projection.x(t.getX(2)), projection.y(t.getY(2)));
+            triangle.closePath();
+            Color color = orderColor(i, tessellation.size());
+            graphics.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 150));
+            graphics.fill(triangle);
+            graphics.setColor(color);
+            graphics.draw(triangle);
+        }
+    }
+
+    private void drawSplits(Graphics2D graphics) {
+        for (Split split : splits) {
+            graphics.setColor(SPLIT_COLORS[(split.depth - 1 + SPLIT_COLORS.length) % SPLIT_COLORS.length]);
+            graphics.setStroke(new BasicStroke(Math.max(1, 7 - split.depth)));
+            graphics.drawLine(projection.x(split.from.getLon()), projection.y(split.from.getLat()),
+                    projection.x(split.to.getLon()), projection.y(split.to.getLat()));
+        }
+    }
+
+    private void drawHotspots(Graphics2D graphics, List<Point> points, Color color, int size) {
+        graphics.setColor(color);
+        graphics.setStroke(new BasicStroke(3));
+        for (Point point : points) {
+            Ellipse2D circle = new Ellipse2D.Double(projection.x(point.getLon()) - size / 2.0, projection.y(point.getLat()) - size / 2.0, size, size);
+            if (color.getAlpha() < 255) graphics.fill(circle);
+            else graphics.draw(circle);
+        }
+    }
+
+    private void drawLegend(Graphics2D graphics) {
+        int x = config.margin / 2;
+        int y = config.height - config.margin / 2;
+        for (int i = 0; i < 200; i++) {
+            graphics.setColor(orderColor(i, 200));
+            graphics.fillRect(x + i, y - 10, 1, 10);
+        }
+        Font font = graphics.getFont();
+        graphics.setFont(font.deriveFont(12.0f));
+        graphics.setColor(Color.WHITE);
+        graphics.drawString("first", x, y + 14);
+        graphics.drawString("last triangle", x + 200 - graphics.getFontMetrics().stringWidth("last triangle"), y + 14);
+        graphics.setFont(font.deriveFont(24.0f));
+        String summary = name + (status == null ? "" : ", " + status) + ": " + events + " events, "
+                + tessellation.size() + " triangles, " + splits.size() + " splits, " + cures.size() + " cures";
+        graphics.drawString(summary, Math.max(x, config.width - config.margin - graphics.getFontMetrics().stringWidth(summary)), config.height - config.margin);
+        graphics.setFont(font);
+    }
+
+    /**
+     * Colour ramp from blue for the first triangle to red for the last.
+     */
+    private static Color orderColor(int index, int count) {
+        float fraction = count > 1 ? (float) index / (count - 1) : 0;
+        return Color.getHSBColor(0.66f * (1 - fraction), 1f, 1f);
+    }
+
+    private static int depth(String status) {
+        int start = status == null ? -1 : status.indexOf('[');
+        int end = status == null ? -1 : status.indexOf(']', start);
+        try {
+            return start >= 0 && end > start ? Integer.parseInt(status.substring(start + 1, end)) : 1;
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    private static class Split {
+        private final int depth;
+        private final Point from;
+        private final Point to;
+
+        private Split(int depth, Point from, Point to) {
+            this.depth = depth;
+            this.from = from;
+            this.to = to;
+        }
+    }
+}
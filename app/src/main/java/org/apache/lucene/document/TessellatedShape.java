@@ -0,0 +1,21 @@
+package org.apache.lucene.document;
+
+import org.apache.lucene.geo.Tessellator;
+
+import java.util.List;
+
+/**
+ * Creates the indexable fields for a shape from an existing tessellation, which is what
+ * {@link LatLonShape#createIndexableFields(String, org.apache.lucene.geo.Polygon)} does after tessellating the polygon
+ * itself. Keeping the two steps separate makes it possible to measure tessellation and indexing independently,
+ * and to index a tessellation that was already made for other reasons, without tessellating the polygon again.
+ */
+public class TessellatedShape {
+    public static Field[] createIndexableFields(String fieldName, List<Tessellator.Triangle> tessellation) {
+        Field[] fields = new Field[tessellation.size()];
+        for (int i = 0; i < tessellation.size(); i++) {
+            fields[i] = new ShapeField.Triangle(fieldName, tessellation.get(i));
+        }
+        return fields;
+    }
+}
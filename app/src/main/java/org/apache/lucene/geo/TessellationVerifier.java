@@ -0,0 +1,258 @@
+package org.apache.lucene.geo;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Verifies the output of the {@link Tessellator} against the original polygon, checking that the total area matches,
+ * and that each triangle edge is flagged as coming from the polygon if, and only if, it lies on a polygon or hole edge
+ * (or on a run of collinear polygon edges). The polygon edges are indexed once in a uniform grid of cells covering the
+ * bounding boxes of the edges, so each triangle edge only needs to be compared to the few polygon edges near its first
+ * point, instead of to every edge in the polygon. This makes verification near-linear in the size of the polygon,
+ * and the indexed edges are read-only, so triangles can also be checked in parallel.
+ */
+public class TessellationVerifier {
+    private final Polygon polygon;
+    private final double[] segments;
+    private final int[] cellStart;
+    private final int[] cellSegments;
+    private final int columns;
+    private final int rows;
+    private final double minX;
+    private final double minY;
+    private final double cellWidth;
+    private final double cellHeight;
+
+    public TessellationVerifier(Polygon polygon) {
+        this.polygon = polygon;
+        SegmentList list = new SegmentList();
+        addSegments(list, polygon);
+        this.segments = list.toArray();
+        int count = segments.length / 4;
+        double width = polygon.maxLon - polygon.minLon;
+        double height = polygon.maxLat - polygon.minLat;
+        this.minX = polygon.minLon;
+        this.minY = polygon.minLat;
+        // Aim for about one cell per segment, with roughly square cells
+        if (width > 0 && height > 0) {
+            this.columns = (int) Math.max(1, Math.min(count, Math.sqrt(count * width / height)));
+            this.rows = Math.max(1, count / columns);
+        } else {
+            this.columns = width > 0 ? Math.max(1, count) : 1;
+            this.rows = height > 0 ? Math.max(1, count) : 1;
+        }
+        this.cellWidth = width / columns;
+        this.cellHeight = height / rows;
+        // Two passes, first counting the segments in each cell, then filling the cells
+        this.cellStart = new int[columns * rows + 1];
+        for (int s = 0; s < count; s++) {
+            forEachCell(s, cell -> cellStart[cell + 1]++);
+        }
+        for (int cell = 0; cell < columns * rows; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        this.cellSegments = new int[cellStart[columns * rows]];
+        int[] next = new int[columns * rows];
+        for (int s = 0; s < count; s++) {
+            final int segment = s;
+            forEachCell(s, cell -> cellSegments[cellStart[cell] + next[cell]++] = segment);
+        }
+    }
+
+    /**
+     * Returns true if the line from a to b lies on an edge of the polygon or any of its holes.
+     */
+    public boolean isEdgeFromPolygon(double aLon, double aLat, double bLon, double bLat) {
+        int cell = row(aLat) * columns + column(aLon);
+        for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+            int s = cellSegments[i] * 4;
+            if (isPointInLine(segments[s], segments[s + 1], segments[s + 2], segments[s + 3], aLon, aLat)
+                    && isPointInLine(segments[s], segments[s + 1], segments[s + 2], segments[s + 3], bLon, bLat)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if all three edges of the triangle are correctly flagged as being from the polygon or not.
+     */
+    public boolean hasValidEdges(Tessellator.Triangle t) {
+        for (int i = 0; i < 3; i++) {
+            int j = (i + 1) % 3;
+            if (t.isEdgefromPolygon(i) != isEdgeFromPolygon(t.getX(i), t.getY(i), t.getX(j), t.getY(j))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns all triangles with incorrectly flagged edges, or an empty list if the tessellation is valid.
+     */
+    public List<Tessellator.Triangle> findInvalidTriangles(List<Tessellator.Triangle> tessellation, boolean parallel) {
+        IntStream indexes = IntStream.range(0, tessellation.size());
+        if (parallel) indexes = indexes.parallel();
+        return indexes.mapToObj(tessellation::get).filter(t -> !hasValidEdges(t)).collect(Collectors.toList());
+    }
+
+    /**
+     * The area of the polygon minus the area of its holes, summed with compensation for rounding errors.
+     */
+    public double polygonArea() {
+        return area(polygon);
+    }
+
+    /**
+     * The total area of the triangles, summed with compensation for rounding errors.
+     */
+    public static double area(List<Tessellator.Triangle> tessellation) {
+        CompensatedSum sum = new CompensatedSum();
+        for (Tessellator.Triangle t : tessellation) {
+            CompensatedSum triangle = new CompensatedSum();
+            for (int i = 0; i < 3; i++) {
+                int j = (i + 1) % 3;
+                triangle.add(t.getX(i) * t.getY(j));
+                triangle.add(-t.getY(i) * t.getX(j));
+            }
+            sum.add(Math.abs(triangle.value() / 2.));
+        }
+        return sum.value();
+    }
+
+    private static double area(Polygon p) {
+        CompensatedSum sum = new CompensatedSum();
+        for (int i = 0; i < p.numPoints() - 1; i++) {
+            sum.add(p.getPolyLon(i) * p.getPolyLat(i + 1));
+            sum.add(-p.getPolyLat(i) * p.getPolyLon(i + 1));
+        }
+        sum = new CompensatedSum().add(Math.abs(sum.value() / 2.));
+        for (Polygon hole : p.getHoles()) {
+            sum.add(-area(hole));
+        }
+        return sum.value();
+    }
+
+    /**
+     * Adds each polygon edge, as well as the lines from each point to any following collinear points,
+     * so that triangle edges spanning several collinear polygon edges are also found.
+     */
+    private static void addSegments(SegmentList list, Polygon p) {
+        final int length = p.numPoints();
+        for (int i = 0; i < length - 1; i++) {
+            list.add(p.getPolyLon(i), p.getPolyLat(i), p.getPolyLon(i + 1), p.getPolyLat(i + 1));
+            if (p.getPolyLon(i) != p.getPolyLon(i + 1) || p.getPolyLat(i) != p.getPolyLat(i + 1)) {
+                final int offset = i + 2;
+                int j = 0;
+                int index = getIndex(length, j + offset);
+                while (j < length && area(p.getPolyLon(i), p.getPolyLat(i), p.getPolyLon(i + 1), p.getPolyLat(i + 1), p.getPolyLon(index), p.getPolyLat(index)) == 0) {
+                    list.add(p.getPolyLon(i), p.getPolyLat(i), p.getPolyLon(index), p.getPolyLat(index));
+                    index = getIndex(length, ++j + offset);
+                }
+            }
+        }
+        for (Polygon hole : p.getHoles()) {
+            addSegments(list, hole);
+        }
+    }
+
+    /**
+     * Visits all cells overlapping the bounding box of the segment, padded by one cell to allow for rounding errors.
+     * A segment of zero length matches any point with the same longitude, so is added to the entire column.
+     */
+    private void forEachCell(int segment, IntConsumer consumer) {
+        int s = segment * 4;
+        double aX = segments[s], aY = segments[s + 1], bX = segments[s + 2], bY = segments[s + 3];
+        int minColumn = Math.max(0, column(Math.min(aX, bX)) - 1);
+        int maxColumn = Math.min(columns - 1, column(Math.max(aX, bX)) + 1);
+        boolean point = aX == bX && aY == bY;
+        int minRow = point ? 0 : Math.max(0, row(Math.min(aY, bY)) - 1);
+        int maxRow = point ? rows - 1 : Math.min(rows - 1, row(Math.max(aY, bY)) + 1);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                consumer.accept(row * columns + column);
+            }
+        }
+    }
+
+    private int column(double x) {
+        return cellWidth > 0 ? Math.max(0, Math.min(columns - 1, (int) ((x - minX) / cellWidth))) : 0;
+    }
+
+    private int row(double y) {
+        return cellHeight > 0 ? Math.max(0, Math.min(rows - 1, (int) ((y - minY) / cellHeight))) : 0;
+    }
+
+    private static int getIndex(int size, int index) {
+        if (index < size) {
+            return index;
+        }
+        return index - size;
+    }
+
+    /**
+     * Compute signed area of triangle
+     */
+    private static double area(final double aX, final double aY, final double bX, final double bY, final double cX, final double cY) {
+        return (bY - aY) * (cX - bX) - (bX - aX) * (cY - bY);
+    }
+
+    private static boolean isPointInLine(final double aX, final double aY, final double bX, final double bY, double lon, double lat) {
+        double dxc = lon - aX;
+        double dyc = lat - aY;
+
+        double dxl = bX - aX;
+        double dyl = bY - aY;
+
+        if (dxc * dyl - dyc * dxl == 0) {
+            if (Math.abs(dxl) >= Math.abs(dyl)) return dxl > 0 ? aX <= lon && lon <= bX : bX <= lon && lon <= aX;
+            else return dyl > 0 ? aY <= lat && lat <= bY : bY <= lat && lat <= aY;
+        }
+        return false;
+    }
+
+    /**
+     * Neumaier summation, which keeps track of the low order bits lost when adding numbers of different magnitude.
+     */
+    private static class CompensatedSum {
+        private double sum;
+        private double compensation;
+
+        private CompensatedSum add(double value) {
+            double t = sum + value;
+            if (Math.abs(sum) >= Math.abs(value)) {
+                compensation += (sum - t) + value;
+            } else {
+                compensation += (value - t) + sum;
+            }
+            sum = t;
+            return this;
+        }
+
+        private double value() {
+            return sum + compensation;
+        }
+    }
+
+    private static class SegmentList {
+        private double[] coordinates = new double[1024];
+        private int size;
+
+        private void add(double aX, double aY, double bX, double bY) {
+            if (size + 4 > coordinates.length) {
+                coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+            }
+            coordinates[size++] = aX;
+            coordinates[size++] = aY;
+            coordinates[size++] = bX;
+            coordinates[size++] = bY;
+        }
+
+        private double[] toArray() {
+            return Arrays.copyOf(coordinates, size);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.amanzi.lucene.geo;
+
+import org.apache.lucene.geo.Point;
+import org.apache.lucene.geo.Polygon;
+import org.apache.lucene.geo.PolygonUtils;
+import org.apache.lucene.geo.Rectangle;
+import org.apache.lucene.geo.Tessellator;
+import org.junit.Test;
+
+import java.awt.image.RenderedImage;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FilteringMonitorTest {
+    @Test
+    public void shouldOnlyPassMatchingStatus() throws Exception {
+        Polygon polygon = Polygon.fromGeoJSON(PolygonUtils.readShape("lucene-10563-1.geojson.gz"))[0];
+        RecordingMonitor all = new RecordingMonitor();
+        Tessellator.tessellate(polygon, true, all);
+        RecordingMonitor splits = new RecordingMonitor();
+        Tessellator.tessellate(polygon, true, new FilteringMonitor(splits, FilteringMonitor.Filter.ALL.withStatus("SPLIT")));
+        assertTrue("Expected splits", all.splits > 0);
+        assertEquals(all.splits, splits.splits);
+        assertEquals("Expected each split to end", splits.splits, splits.endSplits);
+        for (String status : splits.statuses) {
+            assertTrue("Expected only split phase or completion: " + status, status.contains("SPLIT") || status.equals(Tessellator.Monitor.COMPLETED));
+        }
+        assertEquals(Tessellator.Monitor.COMPLETED, splits.statuses.get(splits.statuses.size() - 1));
+    }
+
+    @Test
+    public void shouldNumberEventsLikeImages() throws Exception {
+        Polygon polygon = Polygon.fromGeoJSON(PolygonUtils.readShape("lucene-10563-1.geojson.gz"))[0];
+        RecordingMonitor events = new RecordingMonitor();
+        Tessellator.tessellate(polygon, true, events);
+        TreeMap<Integer, String> all = renderImages(polygon, FilteringMonitor.Filter.ALL);
+        assertEquals("Expected an image per event", 1 + events.statuses.size() + TriangulationMonitor.SPLIT_FRAMES * events.splits, all.size());
+
+        // A window around the first split, which is numbered like the images that show it
+        int split = all.entrySet().stream().filter(e -> String.valueOf(e.getValue()).endsWith(":split")).findFirst().orElseThrow().getKey();
+        TreeMap<Integer, String> window = renderImages(polygon, FilteringMonitor.Filter.ALL.withEvents(split - 10, split + 10));
+        for (int i = split - 10; i <= split + 10; i++) {
+            assertTrue("Expected image " + i + " in window", window.containsKey(i));
+        }
+        for (Map.Entry<Integer, String> image : window.entrySet()) {
+            assertEquals("Expected image " + image.getKey() + " to show the same event", all.get(image.getKey()), image.getValue());
+        }
+        assertEquals("Expected completion to keep its number", all.lastKey(), window.lastKey());
+    }
+
+    @Test
+    public void shouldOnlyPassEventsInRegion() throws Exception {
+        Polygon polygon = Polygon.fromGeoJSON(PolygonUtils.readShape("lucene-10563-1.geojson.gz"))[0];
+        double midLat = (polygon.minLat + polygon.maxLat) / 2;
+        double midLon = (polygon.minLon + polygon.maxLon) / 2;
+        Rectangle region = new Rectangle(polygon.minLat, midLat, polygon.minLon, midLon);
+        RecordingMonitor all = new RecordingMonitor();
+        Tessellator.tessellate(polygon, true, all);
+        RecordingMonitor inside = new RecordingMonitor();
+        Tessellator.tessellate(polygon, true, new FilteringMonitor(inside, FilteringMonitor.Filter.ALL.withRegion(region)));
+        assertTrue("Expected some events in region", inside.statuses.size() > 1);
+        assertTrue("Expected fewer events in region", inside.statuses.size() < all.statuses.size());
+        for (Point ear : inside.ears) {
+            assertTrue("Expected ear near region: " + ear, ear.getLat() < midLat + (midLat - polygon.minLat) && ear.getLon() < midLon + (midLon - polygon.minLon));
+        }
+    }
+
+    /**
+     * Render the images with a TriangulationMonitor behind the filter, and record the status and number of triangles
+     * of the event shown in each image.
+     */
+    private static TreeMap<Integer, String> renderImages(Polygon polygon, FilteringMonitor.Filter filter) {
+        String[] event = new String[1];
+        TreeMap<Integer, String> images = new TreeMap<>();
+        FrameSink sink = new FrameSink() {
+            @Override
+            public void clear() {
+                images.clear();
+            }
+
+            @Override
+            public boolean exists(int index) {
+                return false;
+            }
+
+            @Override
+            public void write(int index, RenderedImage image) {
+                images.put(index, event[0]);
+            }
+
+            @Override
+            public String location(int index) {
+                return "#" + index;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        TriangulationMonitor.Config config = new TriangulationMonitor.Config(Path.of("/tmp/tessellation-numbering"), 300, 200, 20);
+        FilteringMonitor filtered = new FilteringMonitor(new TriangulationMonitor("lucene-10563-1", polygon, config, sink), filter);
+        Tessellator.tessellate(polygon, true, new Tessellator.Monitor() {
+            @Override
+            public void currentState(String status, List<Point> points, List<Tessellator.Triangle> tessellation) {
+                event[0] = status + ":" + (tessellation == null ? 0 : tessellation.size());
+                filtered.currentState(status, points, tessellation);
+            }
+
+            @Override
+            public void startSplit(String status, List<Point> leftPolygon, List<Point> rightPolygon) {
+                event[0] = status + ":split";
+                filtered.startSplit(status, leftPolygon, rightPolygon);
+            }
+
+            @Override
+            public void endSplit(String status) {
+                filtered.endSplit(status);
+            }
+        });
+        return images;
+    }
+
+    private static class RecordingMonitor implements Tessellator.Monitor {
+        private final List<String> statuses = new ArrayList<>();
+        private final List<Point> ears = new ArrayList<>();
+        private int splits;
+        private int endSplits;
+
+        @Override
+        public void currentState(String status, List<Point> points, List<Tessellator.Triangle> tessellation) {
+            statuses.add(status);
+            if (points != null) ears.add(points.get(0));
+        }
+
+        @Override
+        public void startSplit(String status, List<Point> leftPolygon, List<Point> rightPolygon) {
+            splits++;
+        }
+
+        @Override
+        public void endSplit(String status) {
+            endSplits++;
+        }
+    }
+}
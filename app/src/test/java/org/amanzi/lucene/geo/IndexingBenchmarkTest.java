@@ -0,0 +1,51 @@
+package org.amanzi.lucene.geo;
+
+import org.apache.lucene.document.LatLonShape;
+import org.apache.lucene.document.ShapeField;
+import org.apache.lucene.geo.Polygon;
+import org.apache.lucene.geo.PolygonUtils;
+import org.apache.lucene.geo.Tessellator;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IndexingBenchmarkTest {
+    @Test
+    public void shouldIndexCorpus() throws Exception {
+        List<Polygon> corpus = new ArrayList<>();
+        long triangles = 0;
+        for (String name : new String[]{"lucene-10563-1", "lucene-10470", "lucene-10563-2"}) {
+            for (Polygon polygon : Polygon.fromGeoJSON(PolygonUtils.readShape(name + ".geojson.gz"))) {
+                corpus.add(polygon);
+            }
+        }
+        for (Polygon polygon : corpus.subList(0, 2)) {
+            triangles += Tessellator.tessellate(polygon, false).size();
+        }
+        try (ByteBuffersDirectory directory = new ByteBuffersDirectory()) {
+            IndexingBenchmark.Result result = new IndexingBenchmark(corpus, 2, 3).run(directory);
+            assertEquals("Expected malformed shape to fail", 3, result.getFailures());
+            assertEquals(6, result.getDocuments());
+            assertEquals(3 * triangles, result.getTriangles());
+            assertTrue("Expected index size", result.getIndexBytes() > 0);
+            assertTrue("Expected tessellation time", result.tessellationShare() > 0 && result.tessellationShare() < 1);
+            assertThat(result.toString(), containsString("documents/s"));
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                Polygon polygon = corpus.get(0);
+                IndexSearcher searcher = new IndexSearcher(reader);
+                int hits = searcher.count(LatLonShape.newBoxQuery(IndexingBenchmark.FIELD, ShapeField.QueryRelation.INTERSECTS,
+                        polygon.minLat, polygon.maxLat, polygon.minLon, polygon.maxLon));
+                assertTrue("Expected to find the indexed polygon", hits >= 3);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.amanzi.lucene.geo;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.lucene.geo.Polygon;
+import org.apache.lucene.geo.PolygonUtils;
+import org.apache.lucene.geo.Tessellator;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JfrMonitorTest {
+    @Test
+    public void shouldRecordCallbackAndRenderEvents() throws Exception {
+        String geoJson = PolygonUtils.readShape("lucene-10563-1.geojson.gz");
+        Polygon polygon = Polygon.fromGeoJSON(geoJson)[0];
+        TriangulationMonitor.Config config = new TriangulationMonitor.Config(Path.of("/tmp/tessellation-jfr"), 300, 200, 20);
+        Path dump = Files.createTempFile("tessellation", ".jfr");
+        List<Tessellator.Triangle> tessellation;
+        try (Recording recording = new Recording()) {
+            recording.enable("org.amanzi.lucene.geo.MonitorCallback");
+            recording.enable("org.amanzi.lucene.geo.TessellationStep");
+            recording.enable("org.amanzi.lucene.geo.RenderStage");
+            recording.start();
+            tessellation = Tessellator.tessellate(polygon, true, new JfrMonitor("lucene-10563-1", new TriangulationMonitor("lucene-10563-1", polygon, config)));
+            recording.stop();
+            recording.dump(dump);
+        }
+        Map<String, Integer> counts = new HashMap<>();
+        RecordedEvent last = null;
+        for (RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+            String type = event.getEventType().getName();
+            String key = type.endsWith("RenderStage") ? event.getString("stage") : type.substring(type.lastIndexOf('.') + 1);
+            counts.merge(key, 1, Integer::sum);
+            if (type.endsWith("MonitorCallback") && (last == null || event.getStartTime().isAfter(last.getStartTime()))) {
+                last = event;
+            }
+        }
+        Files.delete(dump);
+        int callbacks = counts.getOrDefault("MonitorCallback", 0);
+        assertTrue("Expected many callbacks", callbacks > 100);
+        assertEquals("Expected one step per callback", callbacks, (int) counts.getOrDefault("TessellationStep", 0));
+        assertEquals(counts.get(RenderStageEvent.DRAW), counts.get(RenderStageEvent.LABELS));
+        assertEquals(counts.get(RenderStageEvent.DRAW), counts.get(RenderStageEvent.ENCODE));
+        assertTrue("Expected a frame per callback", counts.get(RenderStageEvent.DRAW) > callbacks);
+        assertEquals(Tessellator.Monitor.COMPLETED, last.getString("status"));
+        assertEquals(tessellation.size(), last.getInt("triangles"));
+    }
+}
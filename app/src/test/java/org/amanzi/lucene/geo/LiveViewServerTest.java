@@ -0,0 +1,176 @@
+package org.amanzi.lucene.geo;
+
+import org.apache.lucene.geo.Point;
+import org.apache.lucene.geo.Polygon;
+import org.apache.lucene.geo.PolygonUtils;
+import org.apache.lucene.geo.Tessellator;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LiveViewServerTest {
+    @Test
+    public void shouldServeViewer() throws Exception {
+        try (LiveViewServer server = new LiveViewServer(0)) {
+            HttpURLConnection connection = (HttpURLConnection) new URL(server.getURL()).openConnection();
+            assertEquals(200, connection.getResponseCode());
+            String html = new String(connection.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertThat("Expected canvas viewer", html, containsString("<canvas"));
+        }
+    }
+
+    @Test
+    public void shouldStreamTriangulationEvents() throws Exception {
+        String geoJson = PolygonUtils.readShape("lucene-10563-1.geojson.gz");
+        Polygon polygon = Polygon.fromGeoJSON(geoJson)[0];
+        try (LiveViewServer server = new LiveViewServer(0)) {
+            List<Tessellator.Triangle> tessellation = Tessellator.tessellate(polygon, true, server.monitor("lucene-10563-1", polygon));
+            HttpURLConnection connection = (HttpURLConnection) new URL(server.getURL() + "events").openConnection();
+            assertEquals(200, connection.getResponseCode());
+            assertThat(connection.getContentType(), startsWith("text/event-stream"));
+            List<String> events = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("data: ")) events.add(line);
+                    if (line.contains(Tessellator.Monitor.COMPLETED)) break;
+                }
+            }
+            assertThat("Expected polygon first", events.get(0), containsString("\"type\":\"polygon\""));
+            assertThat("Expected polygon name", events.get(0), containsString("\"name\":\"lucene-10563-1\""));
+            assertTrue("Expected many events", events.size() > 100);
+            int coordinates = 0;
+            for (String event : events) {
+                if (event.contains("\"type\":\"state\"")) {
+                    String triangles = event.substring(event.indexOf("\"triangles\":[") + 13, event.lastIndexOf(']'));
+                    if (triangles.length() > 0) coordinates += triangles.split(",").length;
+                }
+            }
+            assertEquals("Expected each triangle to be sent once", tessellation.size() * 6, coordinates);
+        }
+    }
+
+    @Test
+    public void shouldSendRingDeltas() throws Exception {
+        String geoJson = PolygonUtils.readShape("lucene-10470.geojson.gz");
+        Polygon polygon = Polygon.fromGeoJSON(geoJson)[0];
+        List<double[]> rings = new ArrayList<>();
+        try (LiveViewServer server = new LiveViewServer(0)) {
+            Tessellator.Monitor live = server.monitor("lucene-10470", polygon);
+            Tessellator.tessellate(polygon, true, new Tessellator.Monitor() {
+                @Override
+                public void currentState(String status, List<Point> points, List<Tessellator.Triangle> tessellation) {
+                    if (points != null) rings.add(flatten(points));
+                    live.currentState(status, points, tessellation);
+                }
+
+                @Override
+                public void startSplit(String status, List<Point> leftPolygon, List<Point> rightPolygon) {
+                    live.startSplit(status, leftPolygon, rightPolygon);
+                }
+
+                @Override
+                public void endSplit(String status) {
+                    live.endSplit(status);
+                }
+            });
+            List<String> events = readEvents(server, null);
+            // Replay the deltas the same way as the viewer does
+            ArrayDeque<double[][]> splits = new ArrayDeque<>();
+            double[] ring = new double[0];
+            int replayed = 0;
+            int full = 0;
+            for (String event : events) {
+                if (event.contains("\"type\":\"split\"")) {
+                    splits.push(new double[][]{numbers(event, "left"), numbers(event, "right")});
+                } else if (event.contains("\"type\":\"endSplit\"")) {
+                    splits.pop();
+                } else if (event.contains("\"base\":")) {
+                    int base = (int) numbers(event, "base")[0];
+                    double[] baseRing = base == 0 ? ring : splits.peek()[base - 1];
+                    int start = (int) numbers(event, "start")[0];
+                    Set<Integer> removed = new HashSet<>();
+                    for (double index : numbers(event, "removed")) removed.add((int) index);
+                    int n = baseRing.length / 2;
+                    double[] next = new double[2 * (n - removed.size())];
+                    for (int k = 0, j = 0; k < n; k++) {
+                        int i = (start + k) % n;
+                        if (removed.contains(i)) continue;
+                        next[j++] = baseRing[2 * i];
+                        next[j++] = baseRing[2 * i + 1];
+                    }
+                    ring = next;
+                    assertArrayEquals("Expected ring of event " + replayed, rings.get(replayed++), ring, 0);
+                } else if (event.contains("\"points\":[")) {
+                    ring = numbers(event, "points");
+                    assertArrayEquals("Expected ring of event " + replayed, rings.get(replayed++), ring, 0);
+                    full++;
+                }
+            }
+            assertEquals("Expected all rings", rings.size(), replayed);
+            assertTrue("Expected few full rings, but got " + full, full < 10);
+        }
+    }
+
+    @Test
+    public void shouldOnlySendNewEventsAfterReconnecting() throws Exception {
+        String geoJson = PolygonUtils.readShape("lucene-10563-1.geojson.gz");
+        Polygon polygon = Polygon.fromGeoJSON(geoJson)[0];
+        try (LiveViewServer server = new LiveViewServer(0)) {
+            Tessellator.tessellate(polygon, true, server.monitor("lucene-10563-1", polygon));
+            List<String> all = readEvents(server, null);
+            List<String> remaining = readEvents(server, "99");
+            assertEquals(all.size() - 100, remaining.size());
+            assertEquals(all.get(100), remaining.get(0));
+        }
+    }
+
+    private static List<String> readEvents(LiveViewServer server, String lastEventId) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(server.getURL() + "events").openConnection();
+        if (lastEventId != null) connection.setRequestProperty("Last-Event-ID", lastEventId);
+        List<String> events = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("data: ")) events.add(line);
+                if (line.contains(Tessellator.Monitor.COMPLETED)) break;
+            }
+        }
+        return events;
+    }
+
+    private static double[] flatten(List<Point> points) {
+        double[] flat = new double[points.size() * 2];
+        for (int i = 0; i < points.size(); i++) {
+            flat[2 * i] = points.get(i).getLon();
+            flat[2 * i + 1] = points.get(i).getLat();
+        }
+        return flat;
+    }
+
+    /**
+     * The numbers of a JSON field that is a number or an array of numbers.
+     */
+    private static double[] numbers(String event, String field) {
+        int start = event.indexOf("\"" + field + "\":") + field.length() + 3;
+        String value = event.startsWith("[", start) ? event.substring(start + 1, event.indexOf(']', start)) : event.substring(start).split("[,}]")[0];
+        return value.isEmpty() ? new double[0] : Arrays.stream(value.split(",")).mapToDouble(Double::parseDouble).toArray();
+    }
+}
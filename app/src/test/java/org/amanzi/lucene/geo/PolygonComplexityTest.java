@@ -0,0 +1,89 @@
+package org.amanzi.lucene.geo;
+
+import org.apache.lucene.geo.Point;
+import org.apache.lucene.geo.Polygon;
+import org.apache.lucene.geo.PolygonUtils;
+import org.apache.lucene.geo.Tessellator;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PolygonComplexityTest {
+    private final TriangulationMonitor.Config config = new TriangulationMonitor.Config(Path.of("/tmp/tessellation"), 1500, 1000, 100, false, true);
+
+    @Test
+    public void shouldPredictFrames() throws Exception {
+        long expectedTotal = 0;
+        long measuredTotal = 0;
+        for (String name : new String[]{"lucene-10563-1", "lucene-10470", "lucene-10470-2", "lucene-10470-3"}) {
+            Polygon polygon = Polygon.fromGeoJSON(PolygonUtils.readShape(name + ".geojson.gz"))[0];
+            PolygonComplexity complexity = new PolygonComplexity(name, polygon);
+            int[] frames = {1};
+            Tessellator.tessellate(polygon, true, new Tessellator.Monitor() {
+                @Override
+                public void currentState(String status, List<Point> points, List<Tessellator.Triangle> tessellation) {
+                    frames[0]++;
+                }
+
+                @Override
+                public void startSplit(String status, List<Point> leftPolygon, List<Point> rightPolygon) {
+                    frames[0] += TriangulationMonitor.SPLIT_FRAMES;
+                }
+
+                @Override
+                public void endSplit(String status) {
+                }
+            });
+            double ratio = (double) complexity.expectedFrames() / frames[0];
+            assertTrue("Expected " + complexity.expectedFrames() + " frames to be close to " + frames[0] + " for " + name,
+                    ratio > 1 / 2.2 && ratio < 2.2);
+            expectedTotal += complexity.expectedFrames();
+            measuredTotal += frames[0];
+        }
+        double ratio = (double) expectedTotal / measuredTotal;
+        assertTrue("Expected " + expectedTotal + " frames in total to be close to " + measuredTotal, ratio > 0.85 && ratio < 1.15);
+    }
+
+    @Test
+    public void shouldAnalysePolygon() throws Exception {
+        Polygon polygon = Polygon.fromGeoJSON(PolygonUtils.readShape("lucene-10470-3.geojson.gz"))[0];
+        PolygonComplexity complexity = new PolygonComplexity("lucene-10470-3", polygon);
+        int vertices = polygon.numPoints() - 1;
+        for (Polygon hole : polygon.getHoles()) vertices += hole.numPoints() - 1;
+        assertEquals(vertices, complexity.getVertices());
+        assertEquals(polygon.numHoles(), complexity.getHoles());
+        assertTrue("Expected positive aspect ratio", complexity.getAspectRatio() > 0);
+        assertThat(complexity.report(config), containsString("lucene-10470-3: " + vertices + " vertices"));
+        TriangulationMonitor.Config smaller = config.withSize(750, 500, 50);
+        assertTrue("Expected smaller images to be cheaper", complexity.estimatedBytes(smaller) < complexity.estimatedBytes(config));
+        assertTrue("Expected smaller images to be faster", complexity.estimatedMillis(smaller) < complexity.estimatedMillis(config));
+    }
+
+    @Test
+    public void shouldRecommendSettings() throws Exception {
+        Polygon small = Polygon.fromGeoJSON(PolygonUtils.readShape("lucene-10563-1.geojson.gz"))[0];
+        Polygon large = Polygon.fromGeoJSON(PolygonUtils.readShape("lucene-10470-3.geojson.gz"))[0];
+        PolygonComplexity simple = new PolygonComplexity("lucene-10563-1", small);
+        PolygonComplexity complex = new PolygonComplexity("lucene-10470-3", large);
+        assertTrue("Expected simple polygon to be first", PolygonComplexity.byEstimatedMillis(c -> config).compare(simple, complex) < 0);
+        long budget = 100L * 1024 * 1024;
+        assertEquals(config.settings(), simple.recommend(config, budget).settings());
+        TriangulationMonitor.Config recommended = complex.recommend(config, budget);
+        assertFalse("Expected labels to be turned off", recommended.labels);
+        assertTrue("Expected to fit budget", complex.estimatedBytes(recommended) <= budget);
+        assertTrue("Expected smaller images", recommended.width < config.width && recommended.height < config.height);
+        TriangulationMonitor.Config minimum = complex.recommend(config, 1);
+        assertTrue("Expected minimum image size", minimum.width >= PolygonComplexity.MIN_WIDTH && minimum.height >= PolygonComplexity.MIN_HEIGHT);
+        // Ordered by the cost with the configuration used for each polygon, not by the number of vertices
+        TriangulationMonitor.Config huge = config.withSize(6000, 4000, 400);
+        assertTrue("Expected simple polygon with large images to be last",
+                PolygonComplexity.byEstimatedMillis(c -> c == simple ? huge : minimum).compare(simple, complex) > 0);
+    }
+}
@@ -10,11 +10,14 @@ import org.junit.Test;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Objects;
 
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.endsWith;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 
@@ -36,7 +39,7 @@ public class TriangulationMonitorAppTest {
             System.setErr(new PrintStream(err));
             TriangulationMonitorApp.main(new String[]{unknown});
             assertThat("Expected error message", err.toString(), containsString("Unknown option: " + unknown));
-            assertThat("Expected help output", out.toString(), containsString("usage: polygon"));
+            assertThat("Expected help output", out.toString(), containsString("usage: lucene-triangulator-debug"));
         }
     }
 
@@ -45,7 +48,7 @@ public class TriangulationMonitorAppTest {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         System.setOut(new PrintStream(out));
         TriangulationMonitorApp.main(new String[]{"-v", "-l", "-D", "/tmp/another", "-W", "5000", "-H", "3000", "-M", "1234"});
-        assertThat("Expected help output", out.toString(), containsString("usage: polygon"));
+        assertThat("Expected help output", out.toString(), containsString("usage: lucene-triangulator-debug"));
         assertExpectedHelpOutput(out.toString(), true, true, "/tmp/another", 5000, 3000, 1234);
     }
 
@@ -90,8 +93,82 @@ public class TriangulationMonitorAppTest {
         assertThat("Expected many image files", countFilesIn(TriangulationMonitorApp.DEFAULT_DIR, "lucene-10563-1"), greaterThan(400));
     }
 
+    @Test
+    public void shouldWriteAnimatedSvg() throws IOException {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(err));
+        TriangulationMonitorApp.main(new String[]{"-F", "svg", "-D", "/tmp/tessellation-svg", "lucene-10563-1"});
+        assertThat("Did not expect an error message", err.toString(), is(emptyString()));
+        String svg = Files.readString(Path.of("/tmp/tessellation-svg", "lucene-10563-1", "lucene-10563-1.svg"));
+        assertThat("Expected svg document", svg, containsString("<svg "));
+        assertThat("Expected triangles", svg, containsString("class=\"triangle\""));
+        assertThat("Expected completed animation", svg.trim(), endsWith("</svg>"));
+    }
+
+    @Test
+    public void shouldWriteSummaryImage() {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(err));
+        TriangulationMonitorApp.main(new String[]{"-F", "summary", "-D", "/tmp/tessellation-summary", "lucene-10563-1", "lucene-10563-2"});
+        assertThat("Expected failure of malformed shape", err.toString(), containsString("Failed triangulating lucene-10563-2"));
+        assertThat("Expected one summary image", countFilesIn("/tmp/tessellation-summary", "lucene-10563-1"), is(1));
+        assertThat("Expected one summary image", countFilesIn("/tmp/tessellation-summary", "lucene-10563-2"), is(1));
+    }
+
+    @Test
+    public void shouldAnalyseWithoutRendering() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(err));
+        TriangulationMonitorApp.main(new String[]{"-A", "-D", "/tmp/tessellation-analyse", "lucene-10470-3", "lucene-10563-1"});
+        assertThat("Did not expect an error message", err.toString(), is(emptyString()));
+        String report = out.toString();
+        assertThat("Expected report", report, containsString("lucene-10563-1: 7"));
+        assertThat("Expected cheapest first", report.indexOf("lucene-10563-1:") < report.indexOf("lucene-10470-3:"), is(true));
+        assertThat("Did not expect images", Files.exists(Path.of("/tmp/tessellation-analyse")), is(false));
+    }
+
+    @Test
+    public void shouldRenderFastestFirstWithAutoSettings() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(err));
+        TriangulationMonitorApp.main(new String[]{"-a", "-W", "300", "-H", "200", "-M", "20", "-e", "1:5", "-D", "/tmp/tessellation-auto", "lucene-10470", "lucene-10563-1"});
+        assertThat("Did not expect an error message", err.toString(), is(emptyString()));
+        String report = out.toString();
+        assertThat("Expected fastest first", report.indexOf("lucene-10563-1:") < report.indexOf("lucene-10470:"), is(true));
+        assertThat("Expected images", countFilesIn("/tmp/tessellation-auto", "lucene-10470", ".png"), is(7));
+    }
+
+    @Test
+    public void shouldOnlyRenderFilteredEvents() {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(err));
+        TriangulationMonitorApp.main(new String[]{"-W", "300", "-H", "200", "-M", "20", "-D", "/tmp/tessellation-filter", "-e", "100:119", "lucene-10563-1"});
+        assertThat("Did not expect an error message", err.toString(), is(emptyString()));
+        // The image of the polygon, the window, and the completed triangulation
+        assertThat("Expected only filtered images", countFilesIn("/tmp/tessellation-filter", "lucene-10563-1", ".png"), is(22));
+        assertThat("Expected images numbered like the events", new File("/tmp/tessellation-filter/lucene-10563-1/lucene-10563-1-00100.png").exists(), is(true));
+        assertThat("Expected images numbered like the events", new File("/tmp/tessellation-filter/lucene-10563-1/lucene-10563-1-00119.png").exists(), is(true));
+        TriangulationMonitorApp.main(new String[]{"-b", "1,2,3", "lucene-10563-1"});
+        assertThat("Expected invalid bbox", err.toString(), containsString("Invalid filter: expected bbox"));
+    }
+
+    @Test
+    public void shouldBenchmarkIndexing() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(err));
+        TriangulationMonitorApp.main(new String[]{"-I", "-T", "2", "-R", "2", "lucene-10563-1", "lucene-10470"});
+        assertThat("Did not expect an error message", err.toString(), is(emptyString()));
+        assertThat("Expected report", out.toString(), containsString("Indexed 4 documents (0 failed)"));
+    }
+
     private void assertExpectedHelpOutput(String text, boolean verbose, boolean labels, String dir, int width, int height, int margin) {
-        assertThat("Expected help output", text, containsString("usage: polygon"));
+        assertThat("Expected help output", text, containsString("usage: lucene-triangulator-debug"));
         assertThat("Expected verbose " + verbose, text, containsString("Verbose output: " + verbose));
         assertThat("Expected labels " + verbose, text, containsString("Add labels to images: " + labels));
         assertThat("Expected dir " + dir, text, containsString("Set the output directory for image files: '" + dir));
@@ -101,8 +178,12 @@ public class TriangulationMonitorAppTest {
     }
 
     private static int countFilesIn(String path, String name) {
+        return countFilesIn(path, name, "");
+    }
+
+    private static int countFilesIn(String path, String name, String suffix) {
         File dir = Path.of(path).resolve(name).toFile();
-        return Objects.requireNonNull(dir.listFiles((d, n) -> n.startsWith(name))).length;
+        return Objects.requireNonNull(dir.listFiles((d, n) -> n.startsWith(name) && n.endsWith(suffix))).length;
     }
 
     private static Matcher<String> emptyString() {
@@ -0,0 +1,144 @@
+package org.amanzi.lucene.geo;
+
+import org.apache.lucene.geo.Polygon;
+import org.apache.lucene.geo.PolygonUtils;
+import org.apache.lucene.geo.Tessellator;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class TriangulationMonitorTest {
+    private final TriangulationMonitor.Config config = new TriangulationMonitor.Config(Path.of("/tmp/tessellation-resume"), 300, 200, 20);
+
+    @Test
+    public void shouldResumeInterruptedRun() throws Exception {
+        String name = "lucene-10563-1";
+        Polygon polygon = Polygon.fromGeoJSON(PolygonUtils.readShape(name + ".geojson.gz"))[0];
+        Tessellator.tessellate(polygon, true, new TriangulationMonitor(name, polygon, config));
+        File[] images = images(name);
+        assertTrue("Expected many images", images.length > 400);
+        assertTrue("Expected checkpoint", config.path.resolve(name).resolve(name + ".checkpoint").toFile().exists());
+
+        // Simulate an interrupted run by removing the last images
+        File kept = images[10];
+        long modified = kept.lastModified() - 10000;
+        assertTrue(kept.setLastModified(modified));
+        for (int i = 250; i < images.length; i++) {
+            assertTrue(images[i].delete());
+        }
+
+        Tessellator.tessellate(polygon, true, new TriangulationMonitor(name, polygon, config.withResume()));
+        assertEquals("Expected all images to exist again", images.length, images(name).length);
+        assertEquals("Expected existing image to be kept", modified, kept.lastModified());
+
+        // Without resume all images are rendered again
+        Tessellator.tessellate(polygon, true, new TriangulationMonitor(name, polygon, config));
+        assertEquals(images.length, images(name).length);
+        assertTrue("Expected image to be rendered again", kept.lastModified() > modified);
+    }
+
+    @Test
+    public void shouldNotDeleteImagesWhenUnableToResume() throws Exception {
+        String name = "lucene-10563-1";
+        Polygon polygon = Polygon.fromGeoJSON(PolygonUtils.readShape(name + ".geojson.gz"))[0];
+        Tessellator.tessellate(polygon, true, new TriangulationMonitor(name, polygon, config));
+        int count = images(name).length;
+        File kept = images(name)[10];
+        long modified = kept.lastModified() - 10000;
+        assertTrue(kept.setLastModified(modified));
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new TriangulationMonitor(name, polygon, config.withLabels().withResume()));
+        assertThat(e.getMessage(), containsString("different settings"));
+
+        Path checkpoint = config.path.resolve(name).resolve(name + ".checkpoint");
+        Files.writeString(checkpoint, "index=broken");
+        e = assertThrows(IllegalStateException.class, () -> new TriangulationMonitor(name, polygon, config.withResume()));
+        assertThat(e.getMessage(), containsString("Unreadable checkpoint"));
+
+        Files.delete(checkpoint);
+        e = assertThrows(IllegalStateException.class, () -> new TriangulationMonitor(name, polygon, config.withResume()));
+        assertThat(e.getMessage(), containsString("No checkpoint"));
+        assertEquals("Expected no images to be deleted", count, images(name).length);
+        assertEquals("Expected existing image to be kept", modified, kept.lastModified());
+    }
+
+    @Test
+    public void shouldNotResumeWhenEventsDoNotMatchCheckpoint() throws Exception {
+        String name = "lucene-10563-1";
+        Polygon polygon = Polygon.fromGeoJSON(PolygonUtils.readShape(name + ".geojson.gz"))[0];
+        Tessellator.tessellate(polygon, true, new TriangulationMonitor(name, polygon, config));
+        int count = images(name).length;
+        File kept = images(name)[count - 1];
+        long modified = kept.lastModified() - 10000;
+        assertTrue(kept.setLastModified(modified));
+
+        // A checkpoint from a run with different events, like one made by another version of the tessellator
+        Path path = config.path.resolve(name).resolve(name + ".checkpoint");
+        Checkpoint checkpoint = Checkpoint.load(path);
+        new Checkpoint(checkpoint.index, checkpoint.status, checkpoint.triangles + 1, checkpoint.settings).save(path);
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> Tessellator.tessellate(polygon, true, new TriangulationMonitor(name, polygon, config.withResume())));
+        assertThat(e.getMessage(), containsString("Events do not match checkpoint"));
+        assertEquals("Expected no images to be deleted", count, images(name).length);
+        assertEquals("Expected last image to be kept", modified, kept.lastModified());
+    }
+
+    @Test
+    public void shouldNotResumeWithDifferentFilter() {
+        FilteringMonitor.Filter cure = FilteringMonitor.Filter.ALL.withStatus("CURE");
+        assertEquals(config.settings(), config.withFilter(FilteringMonitor.Filter.ALL).settings());
+        assertThat(config.withFilter(cure).settings(), containsString("filter status CURE"));
+        assertNotEquals(config.withFilter(cure).settings(), config.withFilter(cure.withEvents(1, 100)).settings());
+    }
+
+    @Test
+    public void shouldWriteImagesToPackFile() throws Exception {
+        String name = "lucene-10563-1";
+        Polygon polygon = Polygon.fromGeoJSON(PolygonUtils.readShape(name + ".geojson.gz"))[0];
+        TriangulationMonitor.Config config = new TriangulationMonitor.Config(Path.of("/tmp/tessellation-pack"), 300, 200, 20);
+        Tessellator.tessellate(polygon, true, new TriangulationMonitor(name, polygon, config.withPack()));
+        File[] files = Objects.requireNonNull(config.path.resolve(name).toFile().listFiles((d, n) -> n.startsWith(name)));
+        assertEquals("Expected only pack and checkpoint files", 2, files.length);
+        Path packPath = config.path.resolve(name).resolve(name + ".pack");
+        int frames;
+        try (PackFrameSink pack = new PackFrameSink(packPath)) {
+            frames = pack.size();
+            assertTrue("Expected many images", frames > 400);
+            assertTrue("Expected PNG image", pack.read(0).length > 0 && pack.read(0)[1] == 'P');
+        }
+
+        // Simulate an interrupted write, which should be truncated when the pack is opened again
+        long length = packPath.toFile().length();
+        Files.write(packPath, new byte[]{0x54, 0x50, 0x4b, 0x31, 0, 0, 0, 1, 0, 0, 1, 0, 1, 2, 3}, StandardOpenOption.APPEND);
+        PackFrameSink resumed = new PackFrameSink(packPath);
+        Tessellator.tessellate(polygon, true, new TriangulationMonitor(name, polygon, config.withPack().withResume(), resumed));
+        assertEquals("Expected no images to be rendered again", length, packPath.toFile().length());
+        assertThrows("Expected pack file to be closed when finished", ClosedChannelException.class, () -> resumed.read(0));
+
+        Path exportDir = Path.of("/tmp/tessellation-export");
+        try (PackFrameSink pack = new PackFrameSink(packPath)) {
+            assertEquals(frames, pack.export(exportDir, name));
+        }
+        File[] exported = Objects.requireNonNull(exportDir.toFile().listFiles((d, n) -> n.startsWith(name) && n.endsWith(".png")));
+        assertEquals(frames, exported.length);
+    }
+
+    private File[] images(String name) {
+        File[] images = Objects.requireNonNull(config.path.resolve(name).toFile().listFiles((d, n) -> n.startsWith(name) && n.endsWith(".png")));
+        Arrays.sort(images);
+        return images;
+    }
+}
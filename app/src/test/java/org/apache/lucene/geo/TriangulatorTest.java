@@ -36,17 +36,45 @@ public class TriangulatorTest {
     private final TriangulationMonitor.Config imageConfig = baseConfig.withLabels();
 
     @Ignore
-    // This polygon takes way too long to include in regular testing
-    public void testComplexPolygon48() throws Exception {
+    // Rendering the images for this polygon takes way too long to include in regular testing
+    public void testComplexPolygon48WithImages() throws Exception {
         String geoJson = PolygonUtils.readShape("lucene-10470-3.geojson.gz");
         Polygon[] polygons = Polygon.fromGeoJSON(geoJson);
         for (Polygon polygon : polygons) {
             List<Tessellator.Triangle> tessellation = Tessellator.tessellate(polygon, true, new TriangulationMonitor("lucene-10470-3", polygon, baseConfig));
-            // calculate the area of big polygons have numerical error
-            assertEquals(area(polygon), area(tessellation), 1e-11);
+            checkTessellation(polygon, tessellation);
+        }
+    }
+
+    @Test
+    public void testComplexPolygon48() throws Exception {
+        String geoJson = PolygonUtils.readShape("lucene-10470-3.geojson.gz");
+        Polygon[] polygons = Polygon.fromGeoJSON(geoJson);
+        for (Polygon polygon : polygons) {
+            List<Tessellator.Triangle> tessellation = Tessellator.tessellate(polygon, true);
+            checkTessellation(polygon, tessellation);
+        }
+    }
+
+    @Test
+    public void shouldVerifySameAsBruteForceChecks() throws Exception {
+        String geoJson = PolygonUtils.readShape("lucene-10563-1.geojson.gz");
+        Polygon[] polygons = Polygon.fromGeoJSON(geoJson);
+        for (Polygon polygon : polygons) {
+            List<Tessellator.Triangle> tessellation = Tessellator.tessellate(polygon, true);
+            TessellationVerifier verifier = new TessellationVerifier(polygon);
+            assertEquals(area(polygon), verifier.polygonArea(), 1e-11);
+            assertEquals(area(tessellation), TessellationVerifier.area(tessellation), 1e-11);
             for (Tessellator.Triangle t : tessellation) {
                 checkTriangleEdgesFromPolygon(polygon, t);
+                for (int i = 0; i < 3; i++) {
+                    int j = (i + 1) % 3;
+                    // Also check the reversed edges and edges between non-adjacent vertices
+                    assertEquals(isEdgeFromPolygon(polygon, t.getX(j), t.getY(j), t.getX(i), t.getY(i)), verifier.isEdgeFromPolygon(t.getX(j), t.getY(j), t.getX(i), t.getY(i)));
+                    assertEquals(isEdgeFromPolygon(polygon, t.getX(i), t.getY(i), polygon.getPolyLon(i), polygon.getPolyLat(i)), verifier.isEdgeFromPolygon(t.getX(i), t.getY(i), polygon.getPolyLon(i), polygon.getPolyLat(i)));
+                }
             }
+            assertEquals(List.of(), verifier.findInvalidTriangles(tessellation, false));
         }
     }
 
@@ -58,11 +86,7 @@ public class TriangulatorTest {
             String wkt = toWKT(polygon);
             System.out.println(wkt);
             List<Tessellator.Triangle> tessellation = Tessellator.tessellate(polygon, true, new TriangulationMonitor("lucene-10563-1", polygon, imageConfig));
-            // calculate the area of big polygons have numerical error
-            assertEquals(area(polygon), area(tessellation), 1e-11);
-            for (Tessellator.Triangle t : tessellation) {
-                checkTriangleEdgesFromPolygon(polygon, t);
-            }
+            checkTessellation(polygon, tessellation);
         }
     }
 
@@ -123,6 +147,13 @@ public class TriangulatorTest {
         return wkt.toString();
     }
 
+    private void checkTessellation(Polygon polygon, List<Tessellator.Triangle> tessellation) {
+        TessellationVerifier verifier = new TessellationVerifier(polygon);
+        // calculate the area of big polygons have numerical error
+        assertEquals(verifier.polygonArea(), TessellationVerifier.area(tessellation), 1e-11);
+        assertEquals("Expected all triangle edges to be correctly flagged", List.of(), verifier.findInvalidTriangles(tessellation, true));
+    }
+
     private double area(Polygon p) {
         double val = 0;
         for (int i = 0; i < p.numPoints() - 1; i++) {